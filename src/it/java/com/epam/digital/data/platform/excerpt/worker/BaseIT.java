@@ -23,6 +23,7 @@ import com.epam.digital.data.platform.excerpt.dao.ExcerptTemplate;
 import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
 import com.epam.digital.data.platform.excerpt.worker.repository.ExcerptRecordRepository;
 import com.epam.digital.data.platform.excerpt.worker.repository.ExcerptTemplateRepository;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptTemplateCache;
 import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
 import org.junit.jupiter.api.AfterEach;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -41,11 +42,14 @@ public abstract class BaseIT {
   protected ExcerptRecordRepository excerptRecordRepository;
   @Autowired
   protected ExcerptTemplateRepository excerptTemplateRepository;
+  @Autowired
+  protected ExcerptTemplateCache excerptTemplateCache;
 
   @AfterEach
   void cleanUp() {
     excerptRecordRepository.deleteAll();
     excerptTemplateRepository.deleteAll();
+    excerptTemplateCache.evictAll();
   }
 
   protected ExcerptTemplate saveExcerptTemplateToDatabase(String name, String template) {
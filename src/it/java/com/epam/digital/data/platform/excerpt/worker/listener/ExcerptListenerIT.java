@@ -62,7 +62,7 @@ class ExcerptListenerIT extends BaseIT {
     excerptEventDto.setRecordId(excerptRecord.getId());
     
     // when
-    excerptListener.generate(new Request<>(excerptEventDto));
+    excerptListener.generate(new Request<>(excerptEventDto), null);
 
     // then
     verify(datafactoryCephService).put(any(), any(), any(), any(), captor.capture());
@@ -87,7 +87,7 @@ class ExcerptListenerIT extends BaseIT {
     excerptEventDto.setRecordId(excerptRecord.getId());
 
     // when
-    excerptListener.generate(new Request<>(excerptEventDto));
+    excerptListener.generate(new Request<>(excerptEventDto), null);
 
     // then
     verify(datafactoryCephService, times(0)).put(any(), any(), any(), any(), any());
@@ -112,7 +112,7 @@ class ExcerptListenerIT extends BaseIT {
     excerptEventDto.setRecordId(excerptRecord.getId());
 
     // when
-    excerptListener.generate(new Request<>(excerptEventDto));
+    excerptListener.generate(new Request<>(excerptEventDto), null);
 
     // then
     verify(datafactoryCephService, times(0)).put(any(), any(), any(), any(), any());
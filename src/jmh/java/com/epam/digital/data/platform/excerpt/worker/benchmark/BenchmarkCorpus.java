@@ -0,0 +1,137 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.benchmark;
+
+import com.epam.digital.data.platform.excerpt.dao.ExcerptTemplate;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.imageio.ImageIO;
+
+public enum BenchmarkCorpus {
+
+  TINY_FORM {
+    @Override
+    String template() {
+      return page("<h1>[=title]</h1>"
+          + "<p>Name: [=name]</p>"
+          + "<p>Registration number: [=number]</p>"
+          + "<p>Issued: [=issued]</p>");
+    }
+
+    @Override
+    Map<String, Object> data() {
+      return Map.of(
+          "title", "Excerpt from the register",
+          "name", "Тарас Шевченко",
+          "number", "1234567890",
+          "issued", "2021-01-01");
+    }
+  },
+
+  LARGE_TABLE {
+    @Override
+    String template() {
+      return page("<table><tr><th>#</th><th>Name</th><th>Amount</th></tr>"
+          + "[#list rows as row]"
+          + "<tr><td>[=row.id]</td><td>[=row.name]</td><td>[=row.amount]</td></tr>"
+          + "[/#list]</table>");
+    }
+
+    @Override
+    Map<String, Object> data() {
+      var random = new Random(TABLE_ROWS);
+      var rows = IntStream.range(0, TABLE_ROWS)
+          .mapToObj(i -> Map.of(
+              "id", String.valueOf(i),
+              "name", "Record " + UUID.nameUUIDFromBytes(String.valueOf(i).getBytes()),
+              "amount", String.valueOf(random.nextInt(1_000_000))))
+          .collect(Collectors.toList());
+      return Map.of("rows", rows);
+    }
+  },
+
+  IMAGE_HEAVY {
+    @Override
+    String template() {
+      return page("[#list images as image]"
+          + "<p>Image [=image?index]</p><img src=\"[=image]\" width=\"200\" height=\"200\"/>"
+          + "[/#list]");
+    }
+
+    @Override
+    Map<String, Object> data() {
+      var random = new Random(IMAGES);
+      var images = new ArrayList<String>();
+      for (var i = 0; i < IMAGES; i++) {
+        images.add("data:image/png;base64," + Base64.getEncoder().encodeToString(image(random)));
+      }
+      return Map.of("images", images);
+    }
+  };
+
+  static final int TABLE_ROWS = 10_000;
+  static final int IMAGES = 20;
+  static final int IMAGE_SIZE = 256;
+
+  abstract String template();
+
+  abstract Map<String, Object> data();
+
+  public ExcerptTemplate excerptTemplate() {
+    var excerptTemplate = new ExcerptTemplate();
+    excerptTemplate.setId(UUID.nameUUIDFromBytes(name().getBytes()));
+    excerptTemplate.setTemplateName(name().toLowerCase());
+    excerptTemplate.setTemplate(template());
+    return excerptTemplate;
+  }
+
+  public Map<String, Object> inputData() {
+    return data();
+  }
+
+  private static String page(String body) {
+    return "<html><head><style>"
+        + "body { font-family: Roboto; font-size: 10pt; } "
+        + "table { border-collapse: collapse; } td, th { border: 1px solid #999; }"
+        + "</style></head><body>" + body + "</body></html>";
+  }
+
+  private static byte[] image(Random random) {
+    var image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_RGB);
+    for (var x = 0; x < IMAGE_SIZE; x++) {
+      for (var y = 0; y < IMAGE_SIZE; y++) {
+        image.setRGB(x, y, new Color(x, y, random.nextInt(256)).getRGB());
+      }
+    }
+    try (var output = new ByteArrayOutputStream()) {
+      ImageIO.write(image, "png", output);
+      return output.toByteArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.benchmark;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.epam.digital.data.platform.dso.client.DigitalSignatureFileRestClient;
+import com.epam.digital.data.platform.excerpt.dao.ExcerptTemplate;
+import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
+import com.epam.digital.data.platform.excerpt.worker.config.FreeMarkerConfiguration;
+import com.epam.digital.data.platform.excerpt.worker.config.PdfRendererProperties;
+import com.epam.digital.data.platform.excerpt.worker.repository.ExcerptRecordBatchRepository;
+import com.epam.digital.data.platform.excerpt.worker.repository.ExcerptRecordRepository;
+import com.epam.digital.data.platform.excerpt.worker.repository.ExcerptTemplateRepository;
+import com.epam.digital.data.platform.excerpt.worker.service.CompiledTemplateCache;
+import com.epam.digital.data.platform.excerpt.worker.service.CompletedExcerptFilter;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptDeduplicator;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptInputLoader;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptLaneRouter;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptMetrics;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptRetryService;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptService;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptSigningClient;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptTemplateCache;
+import com.epam.digital.data.platform.excerpt.worker.service.FontRegistry;
+import com.epam.digital.data.platform.excerpt.worker.service.FreemarkerHtmlRenderer;
+import com.epam.digital.data.platform.excerpt.worker.service.OpenHtmlToPdfPdfRenderer;
+import com.epam.digital.data.platform.excerpt.worker.service.RenderMemoryBudget;
+import com.epam.digital.data.platform.integration.ceph.model.CephObjectMetadata;
+import com.epam.digital.data.platform.integration.ceph.service.CephService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.util.unit.DataSize;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class RenderPipelineBenchmark {
+
+  private static final String BUCKET = "bucket";
+
+  @Param({"TINY_FORM", "LARGE_TABLE", "IMAGE_HEAVY"})
+  private BenchmarkCorpus corpus;
+
+  private ExcerptTemplate excerptTemplate;
+  private Map<String, Object> inputData;
+  private String html;
+
+  private FreemarkerHtmlRenderer htmlRenderer;
+  private OpenHtmlToPdfPdfRenderer pdfRenderer;
+  private ExcerptService excerptService;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    excerptTemplate = corpus.excerptTemplate();
+    inputData = corpus.inputData();
+
+    var meterRegistry = new SimpleMeterRegistry();
+    var compiledTemplateCache = new CompiledTemplateCache(
+        new FreeMarkerConfiguration().getConfig(), meterRegistry, 10);
+    htmlRenderer = new FreemarkerHtmlRenderer(compiledTemplateCache);
+    pdfRenderer = new OpenHtmlToPdfPdfRenderer(
+        new FontRegistry(pdfRendererProperties(), new DefaultResourceLoader(), meterRegistry),
+        pdfRendererProperties(), meterRegistry);
+    html = htmlRenderer.render(excerptTemplate, inputData);
+
+    var cephService = inMemoryCephService();
+    var inputLoader = new ExcerptInputLoader(cephService, new ObjectMapper(), BUCKET, false);
+    excerptService = new ExcerptService(
+        new ExcerptTemplateCache(templateRepository(), compiledTemplateCache, meterRegistry, 10),
+        recordRepository(),
+        mock(ExcerptRecordBatchRepository.class, withSettings().stubOnly()),
+        htmlRenderer,
+        pdfRenderer,
+        cephService,
+        inputLoader,
+        new ExcerptDeduplicator(cephService, new ObjectMapper(), BUCKET, false, 1),
+        new ExcerptRetryService(mock(KafkaTemplate.class, withSettings().stubOnly()),
+            "generate-excerpt-retry", false, 1, Duration.ofSeconds(1), 0, meterRegistry),
+        new CompletedExcerptFilter(mock(ExcerptRecordRepository.class, withSettings().stubOnly()),
+            new ExcerptMetrics(meterRegistry), false, 1),
+        new ExcerptMetrics(meterRegistry),
+        new RenderMemoryBudget(meterRegistry, false, DataSize.ofBytes(0), 0.5,
+            DataSize.ofMegabytes(1), 4),
+        new ExcerptLaneRouter(inputLoader, DataSize.ofKilobytes(256), Duration.ofSeconds(5)),
+        Runnable::run,
+        new ExcerptSigningClient(
+            mock(DigitalSignatureFileRestClient.class, withSettings().stubOnly()),
+            meterRegistry, 1, Duration.ofSeconds(1), false, 1, Duration.ofSeconds(1)),
+        false,
+        BUCKET,
+        DataSize.ofMegabytes(1));
+  }
+
+  @Benchmark
+  public String renderHtml() {
+    return htmlRenderer.render(excerptTemplate, inputData);
+  }
+
+  @Benchmark
+  public void renderPdf(Blackhole blackhole) {
+    pdfRenderer.render(html, new BlackholeOutputStream(blackhole));
+  }
+
+  @Benchmark
+  public void generateExcerpt() {
+    excerptService.generateExcerpt(new ExcerptEventDto(
+        UUID.randomUUID(), excerptTemplate.getTemplateName(), inputData, false));
+  }
+
+  private ExcerptTemplateRepository templateRepository() {
+    var templateRepository = mock(ExcerptTemplateRepository.class, withSettings().stubOnly());
+    when(templateRepository.findFirstByTemplateName(excerptTemplate.getTemplateName()))
+        .thenReturn(Optional.of(excerptTemplate));
+    when(templateRepository.findAllChecksums()).thenReturn(List.of());
+    return templateRepository;
+  }
+
+  private ExcerptRecordRepository recordRepository() {
+    var recordRepository = mock(ExcerptRecordRepository.class, withSettings().stubOnly());
+    when(recordRepository.updateCompleted(any(), any(), any(), any(), any())).thenReturn(1);
+    when(recordRepository.updateStatus(any(), any(), any(), any())).thenReturn(1);
+    return recordRepository;
+  }
+
+  private CephService inMemoryCephService() {
+    var cephService = mock(CephService.class, withSettings().stubOnly());
+    doAnswer(invocation -> {
+      var content = invocation.getArgument(4, InputStream.class);
+      var size = content.transferTo(OutputStream.nullOutputStream());
+      return CephObjectMetadata.builder().contentLength(size).build();
+    }).when(cephService).put(any(), any(), any(), any(), any(InputStream.class));
+    return cephService;
+  }
+
+  private PdfRendererProperties pdfRendererProperties() {
+    var font = new PdfRendererProperties.Font();
+    font.setLocation("classpath:fonts/Roboto.ttf");
+    font.setFamily("Roboto");
+    var properties = new PdfRendererProperties();
+    properties.setFonts(List.of(font));
+    return properties;
+  }
+
+  private static final class BlackholeOutputStream extends OutputStream {
+
+    private final Blackhole blackhole;
+
+    private BlackholeOutputStream(Blackhole blackhole) {
+      this.blackhole = blackhole;
+    }
+
+    @Override
+    public void write(int b) {
+      blackhole.consume(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      blackhole.consume(b);
+    }
+  }
+}
@@ -18,6 +18,7 @@ package com.epam.digital.data.platform.excerpt.worker.audit;
 
 import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
 import com.epam.digital.data.platform.excerpt.model.Request;
+import java.util.List;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -35,7 +36,7 @@ public class AuditAspect {
   }
 
   @Around(
-      "@annotation(com.epam.digital.data.platform.excerpt.worker.audit.AuditableListener) && args(request)")
+      "@annotation(com.epam.digital.data.platform.excerpt.worker.audit.AuditableListener) && args(request, ..)")
   Object kafkaAdvice(ProceedingJoinPoint joinPoint, Request<ExcerptEventDto> request)
       throws Throwable {
     var signature = (MethodSignature) joinPoint.getSignature();
@@ -43,4 +44,14 @@ public class AuditAspect {
     var action = annotation.action();
     return kafkaAuditProcessor.process(joinPoint, action, request);
   }
+
+  @Around(
+      "@annotation(com.epam.digital.data.platform.excerpt.worker.audit.AuditableListener) && args(requests, ..)")
+  Object kafkaBatchAdvice(ProceedingJoinPoint joinPoint, List<Request<ExcerptEventDto>> requests)
+      throws Throwable {
+    var signature = (MethodSignature) joinPoint.getSignature();
+    var annotation = signature.getMethod().getAnnotation(AuditableListener.class);
+    var action = annotation.action();
+    return kafkaAuditProcessor.processBatch(joinPoint, action, requests);
+  }
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.audit;
+
+import com.epam.digital.data.platform.starter.audit.model.AuditSourceInfo;
+import com.epam.digital.data.platform.starter.audit.model.AuditUserInfo;
+
+public class AuditRequestContext {
+
+  private final String requestId;
+  private final AuditSourceInfo sourceInfo;
+  private final AuditUserInfo userInfo;
+
+  public AuditRequestContext(String requestId, AuditSourceInfo sourceInfo,
+      AuditUserInfo userInfo) {
+    this.requestId = requestId;
+    this.sourceInfo = sourceInfo;
+    this.userInfo = userInfo;
+  }
+
+  public String getRequestId() {
+    return requestId;
+  }
+
+  public AuditSourceInfo getSourceInfo() {
+    return sourceInfo;
+  }
+
+  public AuditUserInfo getUserInfo() {
+    return userInfo;
+  }
+}
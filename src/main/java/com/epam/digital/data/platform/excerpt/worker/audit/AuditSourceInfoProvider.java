@@ -24,12 +24,21 @@ import org.springframework.stereotype.Component;
 @Component
 public class AuditSourceInfoProvider {
 
+  private static final String SYSTEM_KEY =
+      Header.X_SOURCE_SYSTEM.getHeaderName().toLowerCase();
+  private static final String APPLICATION_KEY =
+      Header.X_SOURCE_APPLICATION.getHeaderName().toLowerCase();
+  private static final String BUSINESS_PROCESS_KEY =
+      Header.X_SOURCE_BUSINESS_PROCESS.getHeaderName().toLowerCase();
+  private static final String BUSINESS_ACTIVITY_KEY =
+      Header.X_SOURCE_BUSINESS_ACTIVITY.getHeaderName().toLowerCase();
+
   public AuditSourceInfo getAuditSourceInfo() {
     return AuditSourceInfo.AuditSourceInfoBuilder.anAuditSourceInfo()
-        .system(MDC.get(Header.X_SOURCE_SYSTEM.getHeaderName().toLowerCase()))
-        .application(MDC.get(Header.X_SOURCE_APPLICATION.getHeaderName().toLowerCase()))
-        .businessProcess(MDC.get(Header.X_SOURCE_BUSINESS_PROCESS.getHeaderName().toLowerCase()))
-        .businessActivity(MDC.get(Header.X_SOURCE_BUSINESS_ACTIVITY.getHeaderName().toLowerCase()))
+        .system(MDC.get(SYSTEM_KEY))
+        .application(MDC.get(APPLICATION_KEY))
+        .businessProcess(MDC.get(BUSINESS_PROCESS_KEY))
+        .businessActivity(MDC.get(BUSINESS_ACTIVITY_KEY))
         .build();
   }
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.audit;
+
+import com.epam.digital.data.platform.starter.audit.model.AuditUserInfo;
+import com.epam.digital.data.platform.starter.security.jwt.TokenParser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AuditUserInfoCache {
+
+  private static final String CACHE_NAME = "audit-user-info";
+
+  private final TokenParser tokenParser;
+  private final Cache<String, AuditUserInfo> cache;
+
+  public AuditUserInfoCache(
+      TokenParser tokenParser,
+      MeterRegistry meterRegistry,
+      @Value("${excerpt.audit.token-cache-size}") long maxSize) {
+    this.tokenParser = tokenParser;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+  }
+
+  public AuditUserInfo getUserInfo(String jwt) {
+    if (jwt == null) {
+      return null;
+    }
+    return cache.get(DigestUtils.sha256Hex(jwt), key -> parse(jwt));
+  }
+
+  private AuditUserInfo parse(String jwt) {
+    var jwtClaimsDto = tokenParser.parseClaims(jwt);
+    return AuditUserInfo.AuditUserInfoBuilder.anAuditUserInfo()
+        .userName(jwtClaimsDto.getFullName())
+        .userKeycloakId(jwtClaimsDto.getSubject())
+        .userDrfo(jwtClaimsDto.getDrfo())
+        .build();
+  }
+}
@@ -19,6 +19,9 @@ package com.epam.digital.data.platform.excerpt.worker.audit;
 import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
 import com.epam.digital.data.platform.excerpt.model.Request;
 import com.epam.digital.data.platform.starter.audit.model.EventType;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.springframework.stereotype.Component;
 
@@ -27,11 +30,15 @@ public class KafkaAuditProcessor {
 
   static final String BEFORE = "BEFORE";
   static final String AFTER = "AFTER";
+  static final String DURATION_RESULT_PREFIX = "duration_ms=";
 
   private final KafkaEventsFacade kafkaEventsFacade;
+  private final QueuedAuditSender queuedAuditSender;
 
-  public KafkaAuditProcessor(KafkaEventsFacade kafkaEventsFacade) {
+  public KafkaAuditProcessor(KafkaEventsFacade kafkaEventsFacade,
+      QueuedAuditSender queuedAuditSender) {
     this.kafkaEventsFacade = kafkaEventsFacade;
+    this.queuedAuditSender = queuedAuditSender;
   }
 
   public Object process(ProceedingJoinPoint joinPoint, String action, Request<ExcerptEventDto> request)
@@ -39,29 +46,63 @@ public class KafkaAuditProcessor {
     return prepareAndSendKafkaAudit(joinPoint, action, request);
   }
 
+  public Object processBatch(ProceedingJoinPoint joinPoint, String action,
+      List<Request<ExcerptEventDto>> requests) throws Throwable {
+    String methodName = joinPoint.getSignature().getName();
+    var recordIds = requests.stream()
+        .filter(Objects::nonNull)
+        .map(Request::getPayload)
+        .filter(Objects::nonNull)
+        .map(payload -> payload.getRecordId().toString())
+        .collect(Collectors.toList());
+
+    var requestContext = kafkaEventsFacade.createRequestContext();
+    long start = System.nanoTime();
+    if (!queuedAuditSender.isCollapseSteps()) {
+      recordIds.forEach(id -> send(requestContext, methodName, action, BEFORE, id, null));
+    }
+
+    Object result = joinPoint.proceed();
+
+    var afterResult = afterResult(start);
+    recordIds.forEach(id -> send(requestContext, methodName, action, AFTER, id, afterResult));
+    return result;
+  }
+
   private Object prepareAndSendKafkaAudit(
       ProceedingJoinPoint joinPoint, String action, Request<ExcerptEventDto> request)
       throws Throwable {
 
     String methodName = joinPoint.getSignature().getName();
+    String id = request.getPayload().getRecordId().toString();
 
-    kafkaEventsFacade.sendKafkaAudit(
-        EventType.USER_ACTION,
-        methodName,
-        action,
-        BEFORE,
-        request.getPayload().getRecordId().toString(),
-        null);
+    var requestContext = kafkaEventsFacade.createRequestContext();
+    long start = System.nanoTime();
+    if (!queuedAuditSender.isCollapseSteps()) {
+      send(requestContext, methodName, action, BEFORE, id, null);
+    }
 
     Object result = joinPoint.proceed();
 
-    kafkaEventsFacade.sendKafkaAudit(
-        EventType.USER_ACTION,
-        methodName,
-        action,
-        AFTER,
-        request.getPayload().getRecordId().toString(),
-        null);
+    send(requestContext, methodName, action, AFTER, id, afterResult(start));
     return result;
   }
+
+  private String afterResult(long start) {
+    if (!queuedAuditSender.isCollapseSteps()) {
+      return null;
+    }
+    return DURATION_RESULT_PREFIX + (System.nanoTime() - start) / 1_000_000;
+  }
+
+  private void send(AuditRequestContext requestContext, String methodName, String action,
+      String step, String id, String result) {
+    if (queuedAuditSender.isEnabled()) {
+      queuedAuditSender.send(kafkaEventsFacade.createKafkaAudit(
+          requestContext, EventType.USER_ACTION, methodName, action, step, id, result));
+    } else {
+      kafkaEventsFacade.sendKafkaAudit(
+          requestContext, EventType.USER_ACTION, methodName, action, step, id, result);
+    }
+  }
 }
@@ -17,11 +17,10 @@
 package com.epam.digital.data.platform.excerpt.worker.audit;
 
 import com.epam.digital.data.platform.excerpt.worker.service.TraceProvider;
-import com.epam.digital.data.platform.starter.audit.model.AuditUserInfo;
+import com.epam.digital.data.platform.starter.audit.model.AuditEvent;
 import com.epam.digital.data.platform.starter.audit.model.EventType;
 import com.epam.digital.data.platform.starter.audit.service.AbstractAuditFacade;
 import com.epam.digital.data.platform.starter.audit.service.AuditService;
-import com.epam.digital.data.platform.starter.security.jwt.TokenParser;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -33,7 +32,7 @@ public class KafkaEventsFacade extends AbstractAuditFacade {
   static final String KAFKA_REQUEST = "Kafka request. Method: ";
 
   private final TraceProvider traceProvider;
-  private final TokenParser tokenParser;
+  private final AuditUserInfoCache auditUserInfoCache;
   private final AuditSourceInfoProvider auditSourceInfoProvider;
 
   public KafkaEventsFacade(
@@ -41,39 +40,41 @@ public class KafkaEventsFacade extends AbstractAuditFacade {
       @Value("${spring.application.name:excerpt-worker}") String appName,
       Clock clock,
       TraceProvider traceProvider,
-      TokenParser tokenParser,
+      AuditUserInfoCache auditUserInfoCache,
       AuditSourceInfoProvider auditSourceInfoProvider) {
     super(auditService, appName, clock);
     this.traceProvider = traceProvider;
-    this.tokenParser = tokenParser;
+    this.auditUserInfoCache = auditUserInfoCache;
     this.auditSourceInfoProvider = auditSourceInfoProvider;
   }
 
-  public void sendKafkaAudit(EventType eventType, String methodName,
-                             String action, String step, String id,
+  public AuditRequestContext createRequestContext() {
+    return new AuditRequestContext(
+        traceProvider.getRequestId(),
+        auditSourceInfoProvider.getAuditSourceInfo(),
+        auditUserInfoCache.getUserInfo(traceProvider.getAccessToken()));
+  }
+
+  public void sendKafkaAudit(AuditRequestContext requestContext, EventType eventType,
+                             String methodName, String action, String step, String id,
                              String result) {
+    auditService.sendAudit(
+        createKafkaAudit(requestContext, eventType, methodName, action, step, id, result));
+  }
+
+  public AuditEvent createKafkaAudit(AuditRequestContext requestContext, EventType eventType,
+                                     String methodName, String action, String step, String id,
+                                     String result) {
     var event = createBaseAuditEvent(
-        eventType, KAFKA_REQUEST + methodName, traceProvider.getRequestId())
-            .setSourceInfo(auditSourceInfoProvider.getAuditSourceInfo());
+        eventType, KAFKA_REQUEST + methodName, requestContext.getRequestId())
+            .setSourceInfo(requestContext.getSourceInfo());
 
     var context = auditService.createContext(action, step, null, id, null, result);
     event.setContext(context);
-    setUserInfoToEvent(event, traceProvider.getAccessToken());
-
-    auditService.sendAudit(event.build());
-  }
-
-  private void setUserInfoToEvent(GroupedAuditEventBuilder event, String jwt) {
-    if (jwt == null) {
-      return;
+    if (requestContext.getUserInfo() != null) {
+      event.setUserInfo(requestContext.getUserInfo());
     }
 
-    var jwtClaimsDto = tokenParser.parseClaims(jwt);
-    var userInfo = AuditUserInfo.AuditUserInfoBuilder.anAuditUserInfo()
-            .userName(jwtClaimsDto.getFullName())
-            .userKeycloakId(jwtClaimsDto.getSubject())
-            .userDrfo(jwtClaimsDto.getDrfo())
-            .build();
-    event.setUserInfo(userInfo);
+    return event.build();
   }
-}
\ No newline at end of file
+}
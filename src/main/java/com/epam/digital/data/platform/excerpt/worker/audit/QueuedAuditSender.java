@@ -0,0 +1,156 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.audit;
+
+import com.epam.digital.data.platform.starter.audit.model.AuditEvent;
+import com.epam.digital.data.platform.starter.audit.service.AuditService;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class QueuedAuditSender {
+
+  private static final long POLL_TIMEOUT_MILLIS = 100;
+
+  private final Logger log = LoggerFactory.getLogger(QueuedAuditSender.class);
+
+  private final AuditService auditService;
+  private final boolean enabled;
+  private final boolean collapseSteps;
+  private final Duration shutdownTimeout;
+  private final BlockingQueue<AuditEvent> queue;
+  private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+
+  private volatile boolean running;
+  private Thread senderThread;
+
+  public QueuedAuditSender(
+      AuditService auditService,
+      @Value("${excerpt.audit.async.enabled}") boolean enabled,
+      @Value("${excerpt.audit.async.queue-capacity}") int queueCapacity,
+      @Value("${excerpt.audit.async.shutdown-timeout}") Duration shutdownTimeout,
+      @Value("${excerpt.audit.collapse-steps}") boolean collapseSteps) {
+    this.auditService = auditService;
+    this.enabled = enabled;
+    this.collapseSteps = collapseSteps;
+    this.shutdownTimeout = shutdownTimeout;
+    this.queue = new ArrayBlockingQueue<>(Math.max(queueCapacity, 1));
+  }
+
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    running = true;
+    senderThread = new Thread(this::sendQueued, "excerpt-audit-sender");
+    senderThread.setDaemon(true);
+    senderThread.start();
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    if (senderThread == null) {
+      return;
+    }
+    stateLock.writeLock().lock();
+    try {
+      running = false;
+    } finally {
+      stateLock.writeLock().unlock();
+    }
+    senderThread.join(shutdownTimeout.toMillis());
+    if (senderThread.isAlive()) {
+      log.warn("Audit sender did not finish in {}, sending {} queued events on shutdown",
+          shutdownTimeout, queue.size());
+    }
+    sendRemaining();
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public boolean isCollapseSteps() {
+    return collapseSteps;
+  }
+
+  public void send(AuditEvent event) {
+    if (!enqueue(event)) {
+      auditService.sendAudit(event);
+    }
+  }
+
+  private boolean enqueue(AuditEvent event) {
+    stateLock.readLock().lock();
+    try {
+      if (!running) {
+        return false;
+      }
+      queue.put(event);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      stateLock.readLock().unlock();
+    }
+  }
+
+  int getQueueSize() {
+    return queue.size();
+  }
+
+  private void sendQueued() {
+    while (running) {
+      try {
+        var event = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        if (event != null) {
+          sendAudit(event);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    sendRemaining();
+  }
+
+  private void sendRemaining() {
+    for (var event = queue.poll(); event != null; event = queue.poll()) {
+      sendAudit(event);
+    }
+  }
+
+  private void sendAudit(AuditEvent event) {
+    try {
+      auditService.sendAudit(event);
+    } catch (RuntimeException e) {
+      log.error("Failed to send audit event", e);
+    }
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.config;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties.AckMode;
+
+@Configuration
+public class AsyncListenerConfig {
+
+  @Bean
+  public ConcurrentKafkaListenerContainerFactory<?, ?> asyncKafkaListenerContainerFactory(
+      ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+      @Qualifier("concurrentKafkaListenerContainerFactory")
+          ConcurrentKafkaListenerContainerFactory<?, ?> concurrentKafkaListenerContainerFactory) {
+    return manualAckFactory(configurer, concurrentKafkaListenerContainerFactory);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static ConcurrentKafkaListenerContainerFactory<Object, Object> manualAckFactory(
+      ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+      ConcurrentKafkaListenerContainerFactory<?, ?> source) {
+    var factory = new ConcurrentKafkaListenerContainerFactory<Object, Object>();
+    configurer.configure(factory, (ConsumerFactory<Object, Object>) source.getConsumerFactory());
+    BeanUtils.copyProperties(source.getContainerProperties(), factory.getContainerProperties(),
+        "topics", "topicPartitions", "topicPattern");
+    factory.getContainerProperties().setAckMode(AckMode.MANUAL);
+    factory.getContainerProperties().setAsyncAcks(true);
+    return factory;
+  }
+}
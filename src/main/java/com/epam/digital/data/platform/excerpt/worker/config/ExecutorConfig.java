@@ -0,0 +1,138 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.config;
+
+import com.epam.digital.data.platform.excerpt.worker.util.MdcTaskDecorator;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+  private final Logger log = LoggerFactory.getLogger(ExecutorConfig.class);
+
+  @Bean
+  public ThreadPoolTaskExecutor renderTaskExecutor(
+      @Value("${excerpt.render.pool-size}") int poolSize) {
+    var size = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+    var executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(size);
+    executor.setMaxPoolSize(size);
+    executor.setThreadNamePrefix("excerpt-render-");
+    executor.setTaskDecorator(new MdcTaskDecorator());
+    executor.setWaitForTasksToCompleteOnShutdown(true);
+    return executor;
+  }
+
+  @Bean
+  public TaskExecutor ioTaskExecutor(
+      @Value("${excerpt.io.pool-size}") int poolSize,
+      @Value("${excerpt.io.virtual-threads}") boolean virtualThreads) {
+    if (virtualThreads) {
+      var virtualThreadExecutor = virtualThreadFactory("excerpt-io-")
+          .flatMap(ExecutorConfig::threadPerTaskExecutor);
+      if (virtualThreadExecutor.isPresent()) {
+        var executor = new ThreadPerTaskExecutor(virtualThreadExecutor.get());
+        executor.setTaskDecorator(new MdcTaskDecorator());
+        return executor;
+      }
+      log.info("Virtual threads are not supported, using platform threads for I/O");
+    }
+    var executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(poolSize);
+    executor.setMaxPoolSize(poolSize);
+    executor.setThreadNamePrefix("excerpt-io-");
+    executor.setTaskDecorator(new MdcTaskDecorator());
+    executor.setWaitForTasksToCompleteOnShutdown(true);
+    return executor;
+  }
+
+  @Bean
+  public ThreadPoolTaskExecutor lightLaneTaskExecutor(
+      @Value("${excerpt.lanes.light.concurrency}") int concurrency) {
+    return laneTaskExecutor("excerpt-lane-light-", concurrency);
+  }
+
+  @Bean
+  public ThreadPoolTaskExecutor heavyLaneTaskExecutor(
+      @Value("${excerpt.lanes.heavy.concurrency}") int concurrency) {
+    return laneTaskExecutor("excerpt-lane-heavy-", concurrency);
+  }
+
+  private static ThreadPoolTaskExecutor laneTaskExecutor(String namePrefix, int concurrency) {
+    var executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(concurrency);
+    executor.setMaxPoolSize(concurrency);
+    executor.setThreadNamePrefix(namePrefix);
+    executor.setTaskDecorator(new MdcTaskDecorator());
+    executor.setWaitForTasksToCompleteOnShutdown(true);
+    return executor;
+  }
+
+  static Optional<ExecutorService> threadPerTaskExecutor(ThreadFactory threadFactory) {
+    try {
+      return Optional.of((ExecutorService) Executors.class
+          .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+          .invoke(null, threadFactory));
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return Optional.empty();
+    }
+  }
+
+  static Optional<ThreadFactory> virtualThreadFactory(String namePrefix) {
+    try {
+      var builderType = Class.forName("java.lang.Thread$Builder");
+      var builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder = builderType.getMethod("name", String.class, long.class)
+          .invoke(builder, namePrefix, 0L);
+      return Optional.of((ThreadFactory) builderType.getMethod("factory").invoke(builder));
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return Optional.empty();
+    }
+  }
+
+  private static final class ThreadPerTaskExecutor extends TaskExecutorAdapter
+      implements DisposableBean {
+
+    private final ExecutorService executorService;
+
+    private ThreadPerTaskExecutor(ExecutorService executorService) {
+      super(executorService);
+      this.executorService = executorService;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+      executorService.shutdown();
+      executorService.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+  }
+}
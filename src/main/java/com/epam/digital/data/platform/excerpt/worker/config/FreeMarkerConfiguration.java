@@ -16,6 +16,7 @@
 
 package com.epam.digital.data.platform.excerpt.worker.config;
 
+import com.epam.digital.data.platform.excerpt.worker.service.JsonNodeObjectWrapper;
 import freemarker.template.TemplateExceptionHandler;
 import java.util.TimeZone;
 import org.springframework.context.annotation.Bean;
@@ -29,6 +30,8 @@ public class FreeMarkerConfiguration {
     var configuration = new freemarker.template.Configuration(
         freemarker.template.Configuration.VERSION_2_3_30);
     configuration.setDefaultEncoding("UTF-8");
+    configuration.setObjectWrapper(
+        new JsonNodeObjectWrapper(freemarker.template.Configuration.VERSION_2_3_30));
     configuration.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
     configuration.setLogTemplateExceptions(false);
     configuration.setWrapUncheckedExceptions(true);
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.config;
+
+import com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder.FontStyle;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.util.unit.DataSize;
+
+public class PdfRendererProperties {
+
+  private List<Font> fonts = new ArrayList<>();
+  private LargeDocument largeDocument = new LargeDocument();
+
+  public List<Font> getFonts() {
+    return fonts;
+  }
+
+  public void setFonts(List<Font> fonts) {
+    this.fonts = fonts;
+  }
+
+  public LargeDocument getLargeDocument() {
+    return largeDocument;
+  }
+
+  public void setLargeDocument(LargeDocument largeDocument) {
+    this.largeDocument = largeDocument;
+  }
+
+  public static class LargeDocument {
+
+    private DataSize htmlThreshold = DataSize.ofMegabytes(5);
+    private DataSize mainMemory = DataSize.ofMegabytes(32);
+
+    public DataSize getHtmlThreshold() {
+      return htmlThreshold;
+    }
+
+    public void setHtmlThreshold(DataSize htmlThreshold) {
+      this.htmlThreshold = htmlThreshold;
+    }
+
+    public DataSize getMainMemory() {
+      return mainMemory;
+    }
+
+    public void setMainMemory(DataSize mainMemory) {
+      this.mainMemory = mainMemory;
+    }
+  }
+
+  public static class Font {
+
+    private String location;
+    private String family;
+    private int weight = 400;
+    private FontStyle style = FontStyle.NORMAL;
+    private boolean fallback;
+
+    public String getLocation() {
+      return location;
+    }
+
+    public void setLocation(String location) {
+      this.location = location;
+    }
+
+    public String getFamily() {
+      return family;
+    }
+
+    public void setFamily(String family) {
+      this.family = family;
+    }
+
+    public int getWeight() {
+      return weight;
+    }
+
+    public void setWeight(int weight) {
+      this.weight = weight;
+    }
+
+    public FontStyle getStyle() {
+      return style;
+    }
+
+    public void setStyle(FontStyle style) {
+      this.style = style;
+    }
+
+    public boolean isFallback() {
+      return fallback;
+    }
+
+    public void setFallback(boolean fallback) {
+      this.fallback = fallback;
+    }
+  }
+}
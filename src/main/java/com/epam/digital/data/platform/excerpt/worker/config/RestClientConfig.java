@@ -17,10 +17,69 @@
 package com.epam.digital.data.platform.excerpt.worker.config;
 
 import com.epam.digital.data.platform.dso.client.DigitalSignatureFileRestClient;
+import feign.Client;
+import feign.Request;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.okhttp3.OkHttpConnectionPoolMetrics;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @EnableFeignClients(clients = DigitalSignatureFileRestClient.class)
 @Configuration
 public class RestClientConfig {
+
+  static final String POOL_METRICS_PREFIX = "excerpt.signing.http.pool";
+
+  @Bean
+  public ConnectionPool signingConnectionPool(
+      @Value("${excerpt.signing.http.max-idle-connections}") int maxIdleConnections,
+      @Value("${excerpt.signing.http.keep-alive}") Duration keepAlive) {
+    return new ConnectionPool(maxIdleConnections, keepAlive.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @Bean
+  public MeterBinder signingConnectionPoolMetrics(
+      ConnectionPool signingConnectionPool,
+      @Value("${excerpt.signing.http.max-idle-connections}") int maxIdleConnections) {
+    return new OkHttpConnectionPoolMetrics(signingConnectionPool, POOL_METRICS_PREFIX,
+        Tags.empty(), maxIdleConnections);
+  }
+
+  @Bean
+  public OkHttpClient signingHttpClient(
+      ConnectionPool signingConnectionPool,
+      MeterRegistry meterRegistry,
+      @Value("${excerpt.signing.http.connect-timeout}") Duration connectTimeout,
+      @Value("${excerpt.signing.http.read-timeout}") Duration readTimeout,
+      @Value("${excerpt.signing.http.retry-on-connection-failure}") boolean retryOnFailure) {
+    return new OkHttpClient.Builder()
+        .connectionPool(signingConnectionPool)
+        .connectTimeout(connectTimeout)
+        .readTimeout(readTimeout)
+        .writeTimeout(readTimeout)
+        .retryOnConnectionFailure(retryOnFailure)
+        .eventListener(new SigningHttpEventListener(meterRegistry))
+        .build();
+  }
+
+  @Bean
+  public Request.Options signingRequestOptions(
+      @Value("${excerpt.signing.http.connect-timeout}") Duration connectTimeout,
+      @Value("${excerpt.signing.http.read-timeout}") Duration readTimeout) {
+    return new Request.Options(connectTimeout.toMillis(), TimeUnit.MILLISECONDS,
+        readTimeout.toMillis(), TimeUnit.MILLISECONDS, true);
+  }
+
+  @Bean
+  public Client feignClient(OkHttpClient signingHttpClient) {
+    return new feign.okhttp.OkHttpClient(signingHttpClient);
+  }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.config;
+
+import com.epam.digital.data.platform.excerpt.worker.exception.ExcerptRetryableException;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptRetryService;
+import java.util.HashMap;
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.retrytopic.DeadLetterPublishingRecovererFactory;
+import org.springframework.kafka.retrytopic.DestinationTopicResolver;
+import org.springframework.kafka.retrytopic.RetryTopicInternalBeanNames;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+@Configuration
+public class RetryTopicConfig {
+
+  @Bean
+  public KafkaTemplate<String, Object> excerptRetryKafkaTemplate(
+      @Qualifier("excerptRetryProducerFactory")
+          ProducerFactory<String, Object> excerptRetryProducerFactory) {
+    return new KafkaTemplate<>(excerptRetryProducerFactory);
+  }
+
+  @Bean
+  public ProducerFactory<String, Object> excerptRetryProducerFactory(
+      @Qualifier("concurrentKafkaListenerContainerFactory")
+          ConcurrentKafkaListenerContainerFactory<?, ?> concurrentKafkaListenerContainerFactory) {
+    var config = new HashMap<String, Object>();
+    concurrentKafkaListenerContainerFactory.getConsumerFactory().getConfigurationProperties()
+        .forEach((key, value) -> {
+          if (isConnectionProperty(key)) {
+            config.put(key, value);
+          }
+        });
+    config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+    config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+    config.put(ProducerConfig.ACKS_CONFIG, "all");
+    config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+    return new DefaultKafkaProducerFactory<>(config);
+  }
+
+  @Bean(name = RetryTopicInternalBeanNames.DEAD_LETTER_PUBLISHING_RECOVERER_FACTORY_BEAN_NAME)
+  public DeadLetterPublishingRecovererFactory excerptDeadLetterPublishingRecovererFactory(
+      DestinationTopicResolver destinationTopicResolver) {
+    var factory = new DeadLetterPublishingRecovererFactory(destinationTopicResolver);
+    factory.setHeadersFunction((consumerRecord, exception) -> retryHeaders(exception));
+    return factory;
+  }
+
+  static Headers retryHeaders(Throwable exception) {
+    for (var cause = exception; cause != null; cause = cause.getCause()) {
+      if (cause instanceof ExcerptRetryableException) {
+        return ExcerptRetryService.retryHeaders((ExcerptRetryableException) cause);
+      }
+    }
+    return new RecordHeaders();
+  }
+
+  private static boolean isConnectionProperty(String key) {
+    return key.equals(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG)
+        || key.equals(CommonClientConfigs.SECURITY_PROTOCOL_CONFIG)
+        || key.startsWith("ssl.")
+        || key.startsWith("sasl.");
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.okhttp3.OkHttpMetricsEventListener;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import okhttp3.Call;
+import okhttp3.Protocol;
+
+class SigningHttpEventListener extends OkHttpMetricsEventListener {
+
+  static final String REQUESTS_TIMER = "excerpt.signing.http.requests";
+  static final String CONNECT_TIMER = "excerpt.signing.http.connect";
+
+  private final MeterRegistry meterRegistry;
+  private final ConcurrentMap<Call, Timer.Sample> connects = new ConcurrentHashMap<>();
+
+  SigningHttpEventListener(MeterRegistry meterRegistry) {
+    super(meterRegistry, REQUESTS_TIMER, request -> request.url().encodedPath(), Tags.empty(),
+        List.of());
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+    connects.put(call, Timer.start(meterRegistry));
+  }
+
+  @Override
+  public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy,
+      Protocol protocol) {
+    stopConnect(call, "success");
+  }
+
+  @Override
+  public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy,
+      Protocol protocol, IOException ioe) {
+    stopConnect(call, "failure");
+  }
+
+  @Override
+  public void callEnd(Call call) {
+    connects.remove(call);
+    super.callEnd(call);
+  }
+
+  @Override
+  public void callFailed(Call call, IOException ioe) {
+    connects.remove(call);
+    super.callFailed(call, ioe);
+  }
+
+  private void stopConnect(Call call, String outcome) {
+    var sample = connects.remove(call);
+    if (sample != null) {
+      sample.stop(Timer.builder(CONNECT_TIMER)
+          .description("Time spent opening a new connection, including the TLS handshake, "
+              + "to the digital signature service")
+          .tags("tls", String.valueOf(call.request().isHttps()), "outcome", outcome)
+          .register(meterRegistry));
+    }
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.exception;
+
+import com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus;
+
+public class ExcerptRetryableException extends ExcerptProcessingException {
+
+  private final String cephKey;
+  private final boolean stored;
+  private final boolean signed;
+
+  public ExcerptRetryableException(String details, String cephKey, boolean stored,
+      Exception cause) {
+    this(details, cephKey, stored, false, cause);
+  }
+
+  public ExcerptRetryableException(String details, String cephKey, boolean stored,
+      boolean signed, Exception cause) {
+    super(ExcerptProcessingStatus.FAILED, details, cause);
+    this.cephKey = cephKey;
+    this.stored = stored;
+    this.signed = signed;
+  }
+
+  public String getCephKey() {
+    return cephKey;
+  }
+
+  public boolean isStored() {
+    return stored;
+  }
+
+  public boolean isSigned() {
+    return signed;
+  }
+}
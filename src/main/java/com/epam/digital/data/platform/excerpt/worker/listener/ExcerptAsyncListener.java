@@ -0,0 +1,121 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.listener;
+
+import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
+import com.epam.digital.data.platform.excerpt.model.Request;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptRetryService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ExcerptAsyncListener {
+
+  static final String LISTENER_ID = "excerpt-async-listener";
+
+  private final Logger log = LoggerFactory.getLogger(ExcerptAsyncListener.class);
+
+  private final ExcerptListener excerptListener;
+  private final ExcerptRetryService excerptRetryService;
+  private final Executor ioTaskExecutor;
+  private final KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+  private final int highWatermark;
+  private final int lowWatermark;
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  public ExcerptAsyncListener(
+      ExcerptListener excerptListener,
+      ExcerptRetryService excerptRetryService,
+      @Qualifier("ioTaskExecutor") Executor ioTaskExecutor,
+      KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry,
+      @Value("${excerpt.render.queue-capacity}") int queueCapacity) {
+    this.excerptListener = excerptListener;
+    this.excerptRetryService = excerptRetryService;
+    this.ioTaskExecutor = ioTaskExecutor;
+    this.kafkaListenerEndpointRegistry = kafkaListenerEndpointRegistry;
+    this.highWatermark = Math.max(queueCapacity, 1);
+    this.lowWatermark = highWatermark / 2;
+  }
+
+  @KafkaListener(
+      id = LISTENER_ID,
+      topics = "\u0023{kafkaProperties.topics['generate-excerpt']}",
+      groupId = "\u0023{kafkaProperties.consumer.groupId}",
+      containerFactory = "asyncKafkaListenerContainerFactory",
+      autoStartup = "\u0023{'${excerpt.listener.mode}' == 'async'}")
+  public void generate(Request<ExcerptEventDto> input, ConsumerRecord<?, ?> consumerRecord,
+      Acknowledgment acknowledgment,
+      @Header(name = KafkaHeaders.RECEIVED_TIMESTAMP, required = false) Long timestamp) {
+    if (inFlight.incrementAndGet() >= highWatermark) {
+      pause();
+    }
+    ioTaskExecutor.execute(() -> process(input, consumerRecord, timestamp, acknowledgment));
+  }
+
+  int getInFlight() {
+    return inFlight.get();
+  }
+
+  private void process(Request<ExcerptEventDto> input, ConsumerRecord<?, ?> consumerRecord,
+      Long timestamp, Acknowledgment acknowledgment) {
+    var handled = true;
+    try {
+      excerptListener.generate(input, timestamp, consumerRecord);
+    } catch (RuntimeException e) {
+      var recordId = input.getPayload() == null ? null : input.getPayload().getRecordId();
+      log.error("Failed to process excerpt event, record id: {}", recordId, e);
+      handled = input.getPayload() == null
+          || excerptRetryService.reschedule(input.getPayload(), consumerRecord.headers(), e);
+    } finally {
+      if (handled) {
+        acknowledgment.acknowledge();
+      } else {
+        log.error("Excerpt event left unacknowledged, it will be redelivered");
+      }
+      if (inFlight.decrementAndGet() <= lowWatermark) {
+        resume();
+      }
+    }
+  }
+
+  private synchronized void pause() {
+    var container = kafkaListenerEndpointRegistry.getListenerContainer(LISTENER_ID);
+    if (container != null && !container.isPauseRequested() && inFlight.get() >= highWatermark) {
+      log.info("Render queue is full ({} events in flight), pausing consumption", inFlight.get());
+      container.pause();
+    }
+  }
+
+  private synchronized void resume() {
+    var container = kafkaListenerEndpointRegistry.getListenerContainer(LISTENER_ID);
+    if (container != null && container.isPauseRequested() && inFlight.get() <= lowWatermark) {
+      log.info("Render queue drained ({} events in flight), resuming consumption", inFlight.get());
+      container.resume();
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.listener;
+
+import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
+import com.epam.digital.data.platform.excerpt.model.Request;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptMetrics;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptResult;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptRetryService;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+
+final class ExcerptBatchProcessor {
+
+  private ExcerptBatchProcessor() {
+  }
+
+  static void process(List<Request<ExcerptEventDto>> input, List<Long> timestamps,
+      List<Map<String, Object>> convertedHeaders,
+      Function<List<ExcerptEventDto>, Map<UUID, ExcerptResult>> generator,
+      ExcerptRetryService excerptRetryService, ExcerptMetrics excerptMetrics, Clock clock) {
+    var receivedAt = clock.millis();
+    var events = input.stream()
+        .filter(Objects::nonNull)
+        .map(Request::getPayload)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toList());
+
+    for (var i = 0; convertedHeaders != null && i < input.size()
+        && i < convertedHeaders.size(); i++) {
+      var request = input.get(i);
+      if (request != null && request.getPayload() != null) {
+        excerptRetryService.trackSourceHeaders(request.getPayload().getRecordId(),
+            toHeaders(convertedHeaders.get(i)));
+      }
+    }
+    Map<UUID, ExcerptResult> results;
+    try {
+      results = generator.apply(events);
+    } finally {
+      events.forEach(event -> excerptRetryService.releaseSourceHeaders(event.getRecordId()));
+    }
+
+    for (var i = 0; i < input.size() && i < timestamps.size(); i++) {
+      var request = input.get(i);
+      if (request != null && request.getPayload() != null) {
+        var event = request.getPayload();
+        excerptMetrics.recordQueueWait(event.getExcerptType(), results.get(event.getRecordId()),
+            Duration.ofMillis(receivedAt - timestamps.get(i)));
+      }
+    }
+  }
+
+  private static Headers toHeaders(Map<String, Object> convertedHeaders) {
+    var headers = new RecordHeaders();
+    if (convertedHeaders != null) {
+      convertedHeaders.forEach((key, value) -> {
+        if (value instanceof byte[]) {
+          headers.add(key, (byte[]) value);
+        }
+      });
+    }
+    return headers;
+  }
+}
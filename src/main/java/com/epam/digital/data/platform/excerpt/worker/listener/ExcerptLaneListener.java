@@ -0,0 +1,230 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.listener;
+
+import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
+import com.epam.digital.data.platform.excerpt.model.Request;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptLaneRouter;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptLaneRouter.Lane;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptMetrics;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptRetryService;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ExcerptLaneListener {
+
+  static final String LIGHT_LISTENER_ID = "excerpt-lane-light-listener";
+  static final String HEAVY_LISTENER_ID = "excerpt-lane-heavy-listener";
+
+  private final Logger log = LoggerFactory.getLogger(ExcerptLaneListener.class);
+
+  private final ExcerptListener excerptListener;
+  private final ExcerptLaneRouter excerptLaneRouter;
+  private final ExcerptMetrics excerptMetrics;
+  private final ExcerptRetryService excerptRetryService;
+  private final KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+  private final KafkaTemplate<String, Object> kafkaTemplate;
+  private final String heavyTopic;
+  private final Duration sendTimeout;
+  private final Clock clock;
+  private final Map<Lane, LaneState> lanes = new EnumMap<>(Lane.class);
+
+  public ExcerptLaneListener(
+      ExcerptListener excerptListener,
+      ExcerptLaneRouter excerptLaneRouter,
+      ExcerptMetrics excerptMetrics,
+      ExcerptRetryService excerptRetryService,
+      KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry,
+      @Qualifier("excerptRetryKafkaTemplate") KafkaTemplate<String, Object> kafkaTemplate,
+      @Value("\u0023{kafkaProperties.topics['generate-excerpt-heavy']}") String heavyTopic,
+      @Value("${excerpt.lanes.heavy.send-timeout}") Duration sendTimeout,
+      Clock clock,
+      @Qualifier("lightLaneTaskExecutor") Executor lightLaneTaskExecutor,
+      @Value("${excerpt.lanes.light.queue-capacity}") int lightQueueCapacity,
+      @Qualifier("heavyLaneTaskExecutor") Executor heavyLaneTaskExecutor,
+      @Value("${excerpt.lanes.heavy.queue-capacity}") int heavyQueueCapacity) {
+    this.excerptListener = excerptListener;
+    this.excerptLaneRouter = excerptLaneRouter;
+    this.excerptMetrics = excerptMetrics;
+    this.excerptRetryService = excerptRetryService;
+    this.kafkaListenerEndpointRegistry = kafkaListenerEndpointRegistry;
+    this.kafkaTemplate = kafkaTemplate;
+    this.heavyTopic = heavyTopic;
+    this.sendTimeout = sendTimeout;
+    this.clock = clock;
+    lanes.put(Lane.LIGHT,
+        new LaneState(LIGHT_LISTENER_ID, lightLaneTaskExecutor, lightQueueCapacity));
+    lanes.put(Lane.HEAVY,
+        new LaneState(HEAVY_LISTENER_ID, heavyLaneTaskExecutor, heavyQueueCapacity));
+    lanes.forEach((lane, state) ->
+        excerptMetrics.registerLaneDepth(lane.getName(), state.inFlight::get));
+  }
+
+  @KafkaListener(
+      id = LIGHT_LISTENER_ID,
+      topics = "\u0023{kafkaProperties.topics['generate-excerpt']}",
+      groupId = "\u0023{kafkaProperties.consumer.groupId}",
+      containerFactory = "asyncKafkaListenerContainerFactory",
+      autoStartup = "\u0023{'${excerpt.listener.mode}' == 'lanes'}")
+  public void generate(Request<ExcerptEventDto> input, ConsumerRecord<?, ?> consumerRecord,
+      Acknowledgment acknowledgment,
+      @Header(name = KafkaHeaders.RECEIVED_TIMESTAMP, required = false) Long timestamp) {
+    if (excerptLaneRouter.route(input.getPayload()) == Lane.HEAVY
+        && forwardToHeavyLane(input, consumerRecord.headers(), timestamp)) {
+      acknowledgment.acknowledge();
+      return;
+    }
+    submit(Lane.LIGHT, input, consumerRecord.headers(), acknowledgment, timestamp);
+  }
+
+  @KafkaListener(
+      id = HEAVY_LISTENER_ID,
+      topics = "\u0023{kafkaProperties.topics['generate-excerpt-heavy']}",
+      groupId = "\u0023{kafkaProperties.consumer.groupId}",
+      containerFactory = "asyncKafkaListenerContainerFactory",
+      autoStartup = "\u0023{'${excerpt.listener.mode}' == 'lanes'}")
+  public void generateHeavy(Request<ExcerptEventDto> input, ConsumerRecord<?, ?> consumerRecord,
+      Acknowledgment acknowledgment,
+      @Header(name = KafkaHeaders.RECEIVED_TIMESTAMP, required = false) Long timestamp) {
+    submit(Lane.HEAVY, input, consumerRecord.headers(), acknowledgment, timestamp);
+  }
+
+  int getInFlight(Lane lane) {
+    return lanes.get(lane).inFlight.get();
+  }
+
+  private boolean forwardToHeavyLane(Request<ExcerptEventDto> input, Headers headers,
+      Long timestamp) {
+    var recordId = input.getPayload().getRecordId();
+    var record = new ProducerRecord<String, Object>(heavyTopic, null, timestamp,
+        String.valueOf(recordId), input, new RecordHeaders(headers.toArray()));
+    try {
+      kafkaTemplate.send(record).get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      forwardFailed(recordId, e);
+    } catch (ExecutionException | TimeoutException | KafkaException e) {
+      forwardFailed(recordId, e);
+    }
+    return false;
+  }
+
+  private void forwardFailed(Object recordId, Exception cause) {
+    log.warn("Can not forward excerpt event to the heavy lane, processing it in the light lane. "
+        + "Record id: {}", recordId, cause);
+  }
+
+  private void submit(Lane lane, Request<ExcerptEventDto> input, Headers headers,
+      Acknowledgment acknowledgment, Long timestamp) {
+    var state = lanes.get(lane);
+    if (state.inFlight.incrementAndGet() >= state.highWatermark) {
+      pause(lane);
+    }
+    var receivedAt = timestamp == null ? clock.millis() : timestamp;
+    state.executor.execute(
+        () -> process(lane, input, headers, timestamp, receivedAt, acknowledgment));
+  }
+
+  private void process(Lane lane, Request<ExcerptEventDto> input, Headers headers,
+      Long timestamp, long receivedAt, Acknowledgment acknowledgment) {
+    var excerptType = input.getPayload() == null ? null : input.getPayload().getExcerptType();
+    var handled = true;
+    try {
+      excerptListener.generate(input, timestamp, headers, Runnable::run);
+    } catch (RuntimeException e) {
+      var recordId = input.getPayload() == null ? null : input.getPayload().getRecordId();
+      log.error("Failed to process excerpt event in {} lane, record id: {}", lane.getName(),
+          recordId, e);
+      handled = input.getPayload() == null
+          || excerptRetryService.reschedule(input.getPayload(), headers, e);
+    } finally {
+      excerptMetrics.recordLaneLatency(lane.getName(), excerptType,
+          Duration.ofMillis(clock.millis() - receivedAt));
+      if (handled) {
+        acknowledgment.acknowledge();
+      } else {
+        log.error("Excerpt event left unacknowledged in {} lane, it will be redelivered",
+            lane.getName());
+      }
+      if (lanes.get(lane).inFlight.decrementAndGet() <= lanes.get(lane).lowWatermark) {
+        resume(lane);
+      }
+    }
+  }
+
+  private synchronized void pause(Lane lane) {
+    var state = lanes.get(lane);
+    var container = kafkaListenerEndpointRegistry.getListenerContainer(state.listenerId);
+    if (container != null && !container.isPauseRequested()
+        && state.inFlight.get() >= state.highWatermark) {
+      log.info("The {} lane is full ({} events in flight), pausing its consumption",
+          lane.getName(), state.inFlight.get());
+      container.pause();
+    }
+  }
+
+  private synchronized void resume(Lane lane) {
+    var state = lanes.get(lane);
+    var container = kafkaListenerEndpointRegistry.getListenerContainer(state.listenerId);
+    if (container != null && container.isPauseRequested()
+        && state.inFlight.get() <= state.lowWatermark) {
+      log.info("The {} lane drained, resuming its consumption", lane.getName());
+      container.resume();
+    }
+  }
+
+  private static final class LaneState {
+
+    private final String listenerId;
+    private final Executor executor;
+    private final int highWatermark;
+    private final int lowWatermark;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private LaneState(String listenerId, Executor executor, int queueCapacity) {
+      this.listenerId = listenerId;
+      this.executor = executor;
+      this.highWatermark = Math.max(queueCapacity, 1);
+      this.lowWatermark = highWatermark / 2;
+    }
+  }
+}
@@ -19,10 +19,21 @@ package com.epam.digital.data.platform.excerpt.worker.listener;
 import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
 import com.epam.digital.data.platform.excerpt.model.Request;
 import com.epam.digital.data.platform.excerpt.worker.audit.AuditableListener;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptMetrics;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptResult;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptRetryService;
 import com.epam.digital.data.platform.excerpt.worker.service.ExcerptService;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Headers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -31,17 +42,40 @@ public class ExcerptListener {
   private final Logger log = LoggerFactory.getLogger(ExcerptListener.class);
 
   private final ExcerptService excerptService;
+  private final ExcerptRetryService excerptRetryService;
+  private final ExcerptMetrics excerptMetrics;
+  private final Clock clock;
 
-  public ExcerptListener(ExcerptService excerptService) {
+  public ExcerptListener(ExcerptService excerptService, ExcerptRetryService excerptRetryService,
+      ExcerptMetrics excerptMetrics, Clock clock) {
     this.excerptService = excerptService;
+    this.excerptRetryService = excerptRetryService;
+    this.excerptMetrics = excerptMetrics;
+    this.clock = clock;
   }
 
   @AuditableListener(action = "EXCERPT GENERATION")
   @KafkaListener(
       topics = "\u0023{kafkaProperties.topics['generate-excerpt']}",
       groupId = "\u0023{kafkaProperties.consumer.groupId}",
-      containerFactory = "concurrentKafkaListenerContainerFactory")
-  public void generate(Request<ExcerptEventDto> input) {
+      containerFactory = "concurrentKafkaListenerContainerFactory",
+      autoStartup = "\u0023{'${excerpt.listener.mode}' == 'single'}")
+  public void generate(Request<ExcerptEventDto> input,
+      @Header(name = KafkaHeaders.RECEIVED_TIMESTAMP, required = false) Long timestamp,
+      ConsumerRecord<?, ?> consumerRecord) {
+    process(input, timestamp, consumerRecord.headers(), excerptService::generateExcerpt);
+  }
+
+  @AuditableListener(action = "EXCERPT GENERATION")
+  public void generate(Request<ExcerptEventDto> input, Long timestamp, Headers headers,
+      Executor renderExecutor) {
+    process(input, timestamp, headers,
+        event -> excerptService.generateExcerpt(event, renderExecutor));
+  }
+
+  private void process(Request<ExcerptEventDto> input, Long timestamp, Headers headers,
+      Function<ExcerptEventDto, ExcerptResult> generator) {
+    var queueWait = timestamp == null ? null : Duration.ofMillis(clock.millis() - timestamp);
     log.info("Kafka event received");
     if (input.getPayload() != null) {
       log.info(
@@ -50,6 +84,16 @@ public class ExcerptListener {
           input.getPayload().getRecordId());
     }
 
-    excerptService.generateExcerpt(input.getPayload());
+    var recordId = input.getPayload() == null ? null : input.getPayload().getRecordId();
+    excerptRetryService.trackSourceHeaders(recordId, headers);
+    ExcerptResult result;
+    try {
+      result = generator.apply(input.getPayload());
+    } finally {
+      excerptRetryService.releaseSourceHeaders(recordId);
+    }
+    if (queueWait != null && input.getPayload() != null) {
+      excerptMetrics.recordQueueWait(input.getPayload().getExcerptType(), result, queueWait);
+    }
   }
 }
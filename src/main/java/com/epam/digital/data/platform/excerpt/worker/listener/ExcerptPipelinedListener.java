@@ -0,0 +1,68 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.listener;
+
+import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
+import com.epam.digital.data.platform.excerpt.model.Request;
+import com.epam.digital.data.platform.excerpt.worker.audit.AuditableListener;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptMetrics;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptPipelineService;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptRetryService;
+import java.time.Clock;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ExcerptPipelinedListener {
+
+  private final Logger log = LoggerFactory.getLogger(ExcerptPipelinedListener.class);
+
+  private final ExcerptPipelineService excerptPipelineService;
+  private final ExcerptRetryService excerptRetryService;
+  private final ExcerptMetrics excerptMetrics;
+  private final Clock clock;
+
+  public ExcerptPipelinedListener(ExcerptPipelineService excerptPipelineService,
+      ExcerptRetryService excerptRetryService, ExcerptMetrics excerptMetrics, Clock clock) {
+    this.excerptPipelineService = excerptPipelineService;
+    this.excerptRetryService = excerptRetryService;
+    this.excerptMetrics = excerptMetrics;
+    this.clock = clock;
+  }
+
+  @AuditableListener(action = "EXCERPT GENERATION")
+  @KafkaListener(
+      topics = "\u0023{kafkaProperties.topics['generate-excerpt']}",
+      groupId = "\u0023{kafkaProperties.consumer.groupId}",
+      containerFactory = "concurrentKafkaListenerContainerFactory",
+      batch = "true",
+      autoStartup = "\u0023{'${excerpt.listener.mode}' == 'pipelined'}")
+  public void generate(List<Request<ExcerptEventDto>> input,
+      @Header(KafkaHeaders.RECEIVED_TIMESTAMP) List<Long> timestamps,
+      @Header(name = KafkaHeaders.BATCH_CONVERTED_HEADERS, required = false)
+          List<Map<String, Object>> convertedHeaders) {
+    log.info("Kafka batch received. Size: {}", input.size());
+    ExcerptBatchProcessor.process(input, timestamps, convertedHeaders,
+        excerptPipelineService::generateExcerpts, excerptRetryService, excerptMetrics, clock);
+  }
+}
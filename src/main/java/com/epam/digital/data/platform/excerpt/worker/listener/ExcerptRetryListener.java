@@ -0,0 +1,85 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.listener;
+
+import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
+import com.epam.digital.data.platform.excerpt.model.Request;
+import com.epam.digital.data.platform.excerpt.worker.audit.AuditableListener;
+import com.epam.digital.data.platform.excerpt.worker.exception.ExcerptRetryableException;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptRetryService;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptService;
+import java.nio.charset.StandardCharsets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.DltHandler;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ExcerptRetryListener {
+
+  private final Logger log = LoggerFactory.getLogger(ExcerptRetryListener.class);
+
+  private final ExcerptService excerptService;
+
+  public ExcerptRetryListener(ExcerptService excerptService) {
+    this.excerptService = excerptService;
+  }
+
+  @AuditableListener(action = "EXCERPT GENERATION RETRY")
+  @RetryableTopic(
+      attempts = "${excerpt.retry.attempts}",
+      backoff = @Backoff(
+          delayExpression = "${excerpt.retry.backoff.delay}",
+          multiplierExpression = "${excerpt.retry.backoff.multiplier}",
+          maxDelayExpression = "${excerpt.retry.backoff.max-delay}"),
+      kafkaTemplate = "excerptRetryKafkaTemplate",
+      listenerContainerFactory = "concurrentKafkaListenerContainerFactory",
+      include = ExcerptRetryableException.class,
+      traversingCauses = "true",
+      autoCreateTopics = "${excerpt.retry.enabled}",
+      autoStartDltHandler = "${excerpt.retry.enabled}")
+  @KafkaListener(
+      topics = "\u0023{kafkaProperties.topics['generate-excerpt-retry']}",
+      groupId = "\u0023{kafkaProperties.consumer.groupId}",
+      autoStartup = "${excerpt.retry.enabled}")
+  public void retry(Request<ExcerptEventDto> input,
+      @Header(name = ExcerptRetryService.CEPH_KEY_HEADER, required = false) byte[] cephKey,
+      @Header(name = ExcerptRetryService.SIGNED_HEADER, required = false) byte[] signed) {
+    if (input.getPayload() == null) {
+      log.warn("Skipping excerpt retry without payload");
+      return;
+    }
+    excerptService.resumeExcerpt(input.getPayload(), toString(cephKey),
+        Boolean.parseBoolean(toString(signed)));
+  }
+
+  @DltHandler
+  public void retriesExhausted(Request<ExcerptEventDto> input,
+      @Header(name = ExcerptRetryService.CEPH_KEY_HEADER, required = false) byte[] cephKey) {
+    if (input.getPayload() != null) {
+      excerptService.retriesExhausted(input.getPayload(), toString(cephKey));
+    }
+  }
+
+  private static String toString(byte[] header) {
+    return header == null ? null : new String(header, StandardCharsets.UTF_8);
+  }
+}
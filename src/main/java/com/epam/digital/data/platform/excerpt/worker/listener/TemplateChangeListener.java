@@ -0,0 +1,155 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.listener;
+
+import com.epam.digital.data.platform.excerpt.worker.repository.ExcerptTemplateRepository;
+import com.epam.digital.data.platform.excerpt.worker.repository.TemplateChecksum;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptTemplateCache;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TemplateChangeListener {
+
+  private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+
+  private final Logger log = LoggerFactory.getLogger(TemplateChangeListener.class);
+
+  private final DataSource dataSource;
+  private final ExcerptTemplateRepository templateRepository;
+  private final ExcerptTemplateCache templateCache;
+  private final boolean notifyEnabled;
+  private final String channel;
+  private final Duration reconnectDelay;
+
+  private volatile boolean running;
+  private Thread listenerThread;
+
+  public TemplateChangeListener(
+      DataSource dataSource,
+      ExcerptTemplateRepository templateRepository,
+      ExcerptTemplateCache templateCache,
+      @Value("${excerpt.template-cache.notify.enabled}") boolean notifyEnabled,
+      @Value("${excerpt.template-cache.notify.channel}") String channel,
+      @Value("${excerpt.template-cache.notify.reconnect-delay}") Duration reconnectDelay) {
+    if (!CHANNEL_NAME.matcher(channel).matches()) {
+      throw new IllegalArgumentException("Invalid notification channel name: " + channel);
+    }
+    this.dataSource = dataSource;
+    this.templateRepository = templateRepository;
+    this.templateCache = templateCache;
+    this.notifyEnabled = notifyEnabled;
+    this.channel = channel;
+    this.reconnectDelay = reconnectDelay;
+  }
+
+  @PostConstruct
+  public void start() {
+    if (!notifyEnabled) {
+      return;
+    }
+    running = true;
+    listenerThread = new Thread(this::listen, "excerpt-template-listener");
+    listenerThread.setDaemon(true);
+    listenerThread.start();
+  }
+
+  @PreDestroy
+  public void stop() {
+    running = false;
+    if (listenerThread != null) {
+      listenerThread.interrupt();
+    }
+  }
+
+  @Scheduled(
+      initialDelayString = "${excerpt.template-cache.poll-interval}",
+      fixedDelayString = "${excerpt.template-cache.poll-interval}")
+  public void pollChecksums() {
+    try {
+      var checksums = templateRepository.findAllChecksums().stream()
+          .collect(Collectors.toMap(TemplateChecksum::getId, TemplateChecksum::getChecksum));
+      templateCache.evictChanged(checksums);
+    } catch (RuntimeException e) {
+      log.warn("Excerpt template checksum poll failed", e);
+    }
+  }
+
+  void onNotification(String payload) {
+    if (payload == null || payload.isBlank()) {
+      templateCache.evictAll();
+      return;
+    }
+    try {
+      templateCache.evict(UUID.fromString(payload.trim()));
+    } catch (IllegalArgumentException e) {
+      templateCache.evict(payload.trim());
+    }
+  }
+
+  private void listen() {
+    while (running) {
+      try (var connection = dataSource.getConnection();
+          var statement = connection.createStatement()) {
+        statement.execute("LISTEN " + channel);
+        if (!connection.getAutoCommit()) {
+          connection.commit();
+        }
+        log.info("Listening for excerpt template changes on channel {}", channel);
+        // changes made while not listening are unknown
+        templateCache.evictAll();
+
+        var pgConnection = connection.unwrap(PGConnection.class);
+        while (running) {
+          var notifications = pgConnection.getNotifications((int) reconnectDelay.toMillis());
+          if (notifications != null) {
+            for (var notification : notifications) {
+              onNotification(notification.getParameter());
+            }
+          }
+        }
+      } catch (SQLException | RuntimeException e) {
+        if (running) {
+          log.warn("Excerpt template change listener failed, reconnecting in {}",
+              reconnectDelay, e);
+          sleep(reconnectDelay);
+        }
+      }
+    }
+  }
+
+  private void sleep(Duration duration) {
+    try {
+      Thread.sleep(duration.toMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+}
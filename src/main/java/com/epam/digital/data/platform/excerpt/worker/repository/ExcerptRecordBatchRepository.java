@@ -0,0 +1,81 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.repository;
+
+import com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptResult;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class ExcerptRecordBatchRepository {
+
+  static final String UPDATE_COMPLETED = "update excerpt_record set status = ?, excerpt_key = ?, "
+      + "checksum = ?, updated_at = ? where id = ?";
+  static final String UPDATE_STATUS = "update excerpt_record set status = ?, status_details = ?, "
+      + "updated_at = ? where id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public ExcerptRecordBatchRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  public Set<UUID> updateResults(Map<UUID, ExcerptResult> results, LocalDateTime updatedAt) {
+    var completedIds = new ArrayList<UUID>();
+    var completedArgs = new ArrayList<Object[]>();
+    var statusIds = new ArrayList<UUID>();
+    var statusArgs = new ArrayList<Object[]>();
+    results.forEach((id, result) -> {
+      if (result.getStatus() == ExcerptProcessingStatus.COMPLETED) {
+        completedIds.add(id);
+        completedArgs.add(new Object[] {result.getStatus().name(), result.getExcerptKey(),
+            result.getChecksum(), updatedAt, id});
+      } else {
+        statusIds.add(id);
+        statusArgs.add(new Object[] {result.getStatus().name(), result.getStatusDetails(),
+            updatedAt, id});
+      }
+    });
+
+    var updated = new HashSet<UUID>();
+    if (!completedArgs.isEmpty()) {
+      collectUpdated(completedIds, jdbcTemplate.batchUpdate(UPDATE_COMPLETED, completedArgs),
+          updated);
+    }
+    if (!statusArgs.isEmpty()) {
+      collectUpdated(statusIds, jdbcTemplate.batchUpdate(UPDATE_STATUS, statusArgs), updated);
+    }
+    return updated;
+  }
+
+  private static void collectUpdated(List<UUID> ids, int[] rowCounts, Set<UUID> updated) {
+    for (var i = 0; i < ids.size() && i < rowCounts.length; i++) {
+      if (rowCounts[i] > 0 || rowCounts[i] == Statement.SUCCESS_NO_INFO) {
+        updated.add(ids.get(i));
+      }
+    }
+  }
+}
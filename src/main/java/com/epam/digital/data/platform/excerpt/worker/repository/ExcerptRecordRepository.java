@@ -17,9 +17,35 @@
 package com.epam.digital.data.platform.excerpt.worker.repository;
 
 import com.epam.digital.data.platform.excerpt.dao.ExcerptRecord;
+import com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus;
+import java.time.LocalDateTime;
 import java.util.UUID;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface ExcerptRecordRepository extends CrudRepository<ExcerptRecord, UUID> {
 
+  @Transactional
+  @Modifying
+  @Query("update ExcerptRecord r set r.status = :status, r.excerptKey = :excerptKey, "
+      + "r.checksum = :checksum, r.updatedAt = :updatedAt where r.id = :id")
+  int updateCompleted(
+      @Param("id") UUID id,
+      @Param("status") ExcerptProcessingStatus status,
+      @Param("excerptKey") String excerptKey,
+      @Param("checksum") String checksum,
+      @Param("updatedAt") LocalDateTime updatedAt);
+
+  @Transactional
+  @Modifying
+  @Query("update ExcerptRecord r set r.status = :status, r.statusDetails = :statusDetails, "
+      + "r.updatedAt = :updatedAt where r.id = :id")
+  int updateStatus(
+      @Param("id") UUID id,
+      @Param("status") ExcerptProcessingStatus status,
+      @Param("statusDetails") String statusDetails,
+      @Param("updatedAt") LocalDateTime updatedAt);
 }
@@ -17,11 +17,16 @@
 package com.epam.digital.data.platform.excerpt.worker.repository;
 
 import com.epam.digital.data.platform.excerpt.dao.ExcerptTemplate;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
 public interface ExcerptTemplateRepository extends CrudRepository<ExcerptTemplate, UUID> {
 
   Optional<ExcerptTemplate> findFirstByTemplateName(String templateName);
+
+  @Query(value = "select id, md5(template) as checksum from excerpt_template", nativeQuery = true)
+  List<TemplateChecksum> findAllChecksums();
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import com.epam.digital.data.platform.excerpt.dao.ExcerptTemplate;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.UUID;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CompiledTemplateCache {
+
+  static final String CACHE_NAME = "excerpt-templates";
+
+  private final Logger log = LoggerFactory.getLogger(CompiledTemplateCache.class);
+
+  private final Configuration freemarker;
+  private final Cache<TemplateKey, Template> cache;
+
+  public CompiledTemplateCache(
+      Configuration freemarker,
+      MeterRegistry meterRegistry,
+      @Value("${excerpt.template-cache.max-size}") long maxSize) {
+    this.freemarker = freemarker;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+  }
+
+  public Template get(ExcerptTemplate excerptTemplate) throws IOException {
+    var key = new TemplateKey(excerptTemplate.getId(), excerptTemplate.getTemplateName(),
+        DigestUtils.sha256Hex(excerptTemplate.getTemplate()));
+
+    try {
+      return cache.get(key, k -> compile(excerptTemplate));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private Template compile(ExcerptTemplate excerptTemplate) {
+    log.info("Compiling excerpt template: {}", excerptTemplate.getTemplateName());
+    try {
+      return new Template(excerptTemplate.getTemplateName(), excerptTemplate.getTemplate(),
+          freemarker);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public void evict(UUID templateId) {
+    cache.asMap().keySet().removeIf(key -> Objects.equals(key.templateId, templateId));
+  }
+
+  public void evictAll() {
+    cache.invalidateAll();
+  }
+
+  private static final class TemplateKey {
+
+    private final UUID templateId;
+    private final String templateName;
+    private final String checksum;
+
+    private TemplateKey(UUID templateId, String templateName, String checksum) {
+      this.templateId = templateId;
+      this.templateName = templateName;
+      this.checksum = checksum;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      var that = (TemplateKey) o;
+      return Objects.equals(templateId, that.templateId)
+          && Objects.equals(templateName, that.templateName)
+          && Objects.equals(checksum, that.checksum);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(templateId, templateName, checksum);
+    }
+  }
+}
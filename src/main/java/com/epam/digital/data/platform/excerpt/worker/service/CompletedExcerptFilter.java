@@ -0,0 +1,124 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import static com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus.COMPLETED;
+
+import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
+import com.epam.digital.data.platform.excerpt.worker.repository.ExcerptRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CompletedExcerptFilter {
+
+  static final String CACHE = "cache";
+  static final String DATABASE = "database";
+
+  private final Logger log = LoggerFactory.getLogger(CompletedExcerptFilter.class);
+
+  private final ExcerptRecordRepository recordRepository;
+  private final ExcerptMetrics excerptMetrics;
+  private final boolean enabled;
+  private final Cache<UUID, ExcerptResult> recentlyCompleted;
+
+  public CompletedExcerptFilter(
+      ExcerptRecordRepository recordRepository,
+      ExcerptMetrics excerptMetrics,
+      @Value("${excerpt.idempotency.enabled}") boolean enabled,
+      @Value("${excerpt.idempotency.recent-size}") long recentSize) {
+    this.recordRepository = recordRepository;
+    this.excerptMetrics = excerptMetrics;
+    this.enabled = enabled;
+    this.recentlyCompleted = Caffeine.newBuilder()
+        .maximumSize(recentSize)
+        .build();
+  }
+
+  public Optional<ExcerptResult> findCompleted(ExcerptEventDto event) {
+    if (!enabled || event == null || event.getRecordId() == null) {
+      return Optional.empty();
+    }
+    var recent = recentlyCompleted.getIfPresent(event.getRecordId());
+    if (recent != null) {
+      skipped(event, CACHE);
+      return Optional.of(recent);
+    }
+    var stored = recordRepository.findById(event.getRecordId())
+        .filter(record -> record.getStatus() == COMPLETED)
+        .map(record -> ExcerptResult.completed(record.getExcerptKey(), record.getChecksum()));
+    stored.ifPresent(result -> {
+      recentlyCompleted.put(event.getRecordId(), result);
+      skipped(event, DATABASE);
+    });
+    return stored;
+  }
+
+  public Map<UUID, ExcerptResult> findCompleted(List<ExcerptEventDto> events) {
+    var completed = new LinkedHashMap<UUID, ExcerptResult>();
+    if (!enabled) {
+      return completed;
+    }
+    var unknown = new HashMap<UUID, ExcerptEventDto>();
+    for (var event : events) {
+      if (event.getRecordId() == null) {
+        continue;
+      }
+      var recent = recentlyCompleted.getIfPresent(event.getRecordId());
+      if (recent != null) {
+        skipped(event, CACHE);
+        completed.put(event.getRecordId(), recent);
+      } else {
+        unknown.put(event.getRecordId(), event);
+      }
+    }
+    if (unknown.isEmpty()) {
+      return completed;
+    }
+    for (var record : recordRepository.findAllById(unknown.keySet())) {
+      if (record.getStatus() == COMPLETED) {
+        var result = ExcerptResult.completed(record.getExcerptKey(), record.getChecksum());
+        recentlyCompleted.put(record.getId(), result);
+        skipped(unknown.get(record.getId()), DATABASE);
+        completed.put(record.getId(), result);
+      }
+    }
+    return completed;
+  }
+
+  public void markCompleted(UUID recordId, ExcerptResult result) {
+    if (enabled && result.getStatus() == COMPLETED && recordId != null) {
+      recentlyCompleted.put(recordId, result);
+    }
+  }
+
+  private void skipped(ExcerptEventDto event, String source) {
+    log.info("Excerpt record is already completed, skipping redelivered event. RecordId: {}",
+        event.getRecordId());
+    excerptMetrics.recordDuplicateSkipped(event.getExcerptType(), source);
+  }
+}
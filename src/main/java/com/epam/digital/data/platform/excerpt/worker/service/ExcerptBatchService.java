@@ -0,0 +1,77 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ExcerptBatchService {
+
+  private final Logger log = LoggerFactory.getLogger(ExcerptBatchService.class);
+
+  private final ExcerptService excerptService;
+  private final Executor ioTaskExecutor;
+
+  public ExcerptBatchService(
+      ExcerptService excerptService,
+      @Qualifier("ioTaskExecutor") Executor ioTaskExecutor) {
+    this.excerptService = excerptService;
+    this.ioTaskExecutor = ioTaskExecutor;
+  }
+
+  public Map<UUID, ExcerptResult> generateExcerpts(List<ExcerptEventDto> events) {
+    var completed = excerptService.findCompleted(events);
+    var groups = new LinkedHashMap<String, List<ExcerptEventDto>>();
+    events.stream()
+        .filter(event -> !completed.containsKey(event.getRecordId()))
+        .forEach(event ->
+            groups.computeIfAbsent(event.getExcerptType(), type -> new ArrayList<>()).add(event));
+    log.info("Generating {} excerpts of {} types, {} already completed",
+        events.size() - completed.size(), groups.size(), completed.size());
+
+    var futures = new LinkedHashMap<UUID, CompletableFuture<ExcerptResult>>();
+    groups.forEach((excerptType, group) -> {
+      var excerptTemplate = excerptService.findTemplate(excerptType);
+      for (var event : group) {
+        var future = excerptTemplate
+            .map(template -> CompletableFuture.supplyAsync(
+                () -> excerptService.renderAndStore(event, template), ioTaskExecutor))
+            .orElseGet(() -> CompletableFuture.completedFuture(excerptService.templateNotFound()));
+        futures.put(event.getRecordId(), future);
+      }
+    });
+
+    var results = new LinkedHashMap<UUID, ExcerptResult>();
+    futures.forEach((recordId, future) -> results.put(recordId, future.join()));
+    excerptService.saveResults(results);
+
+    var allResults = new LinkedHashMap<UUID, ExcerptResult>(completed);
+    allResults.putAll(results);
+    return allResults;
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.output.ThresholdingOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ExcerptContent implements Closeable {
+
+  private final Logger log = LoggerFactory.getLogger(ExcerptContent.class);
+
+  private final SpillingOutputStream outputStream;
+  private final DigestOutputStream digestOutputStream;
+
+  public ExcerptContent(long threshold) {
+    this.outputStream = new SpillingOutputStream((int) Math.min(threshold, Integer.MAX_VALUE));
+    this.digestOutputStream =
+        new DigestOutputStream(outputStream, DigestUtils.getSha256Digest());
+  }
+
+  public OutputStream getOutputStream() {
+    return digestOutputStream;
+  }
+
+  public String getChecksum() {
+    try {
+      var digest = (MessageDigest) digestOutputStream.getMessageDigest().clone();
+      return Hex.encodeHexString(digest.digest());
+    } catch (CloneNotSupportedException e) {
+      throw new IllegalStateException("SHA-256 digest can not be cloned", e);
+    }
+  }
+
+  public InputStream getInputStream() throws IOException {
+    outputStream.close();
+    if (outputStream.file == null) {
+      return outputStream.memory.toInputStream();
+    }
+    return new BufferedInputStream(Files.newInputStream(outputStream.file));
+  }
+
+  public long getSize() {
+    return outputStream.getByteCount();
+  }
+
+  public boolean isInMemory() {
+    return outputStream.file == null;
+  }
+
+  @Override
+  public void close() {
+    try {
+      outputStream.close();
+      if (outputStream.file != null) {
+        Files.deleteIfExists(outputStream.file);
+      }
+    } catch (IOException e) {
+      log.warn("Failed to remove temporary excerpt file: {}", outputStream.file, e);
+    }
+  }
+
+  private static final class SpillingOutputStream extends ThresholdingOutputStream {
+
+    private final MemoryOutputStream memory = new MemoryOutputStream();
+    private OutputStream current = memory;
+    private Path file;
+    private boolean closed;
+
+    private SpillingOutputStream(int threshold) {
+      super(threshold);
+    }
+
+    @Override
+    protected OutputStream getStream() {
+      return current;
+    }
+
+    @Override
+    protected void thresholdReached() throws IOException {
+      file = Files.createTempFile("excerpt-", ".pdf");
+      var fileStream = new BufferedOutputStream(Files.newOutputStream(file));
+      memory.writeTo(fileStream);
+      memory.release();
+      current = fileStream;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!closed) {
+        closed = true;
+        super.close();
+      }
+    }
+  }
+
+  private static final class MemoryOutputStream extends ByteArrayOutputStream {
+
+    private InputStream toInputStream() {
+      return new ByteArrayInputStream(buf, 0, count);
+    }
+
+    private void release() {
+      buf = new byte[0];
+      count = 0;
+    }
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import static com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus.COMPLETED;
+
+import com.epam.digital.data.platform.excerpt.dao.ExcerptTemplate;
+import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
+import com.epam.digital.data.platform.integration.ceph.service.CephService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ExcerptDeduplicator {
+
+  static final String KEY_PREFIX = "excerpt-sha256-";
+  static final String CHECKSUM_METADATA = "checksum";
+
+  private final Logger log = LoggerFactory.getLogger(ExcerptDeduplicator.class);
+
+  private final CephService datafactoryCephService;
+  private final ObjectMapper canonicalObjectMapper;
+  private final String bucket;
+  private final boolean enabled;
+  private final Cache<String, ExcerptResult> index;
+  private final ConcurrentMap<String, CompletableFuture<ExcerptResult>> inFlight =
+      new ConcurrentHashMap<>();
+
+  public ExcerptDeduplicator(
+      CephService datafactoryCephService,
+      ObjectMapper objectMapper,
+      @Value("${datafactory-excerpt-ceph.bucket}") String bucket,
+      @Value("${excerpt.dedupe.enabled}") boolean enabled,
+      @Value("${excerpt.dedupe.index-size}") long indexSize) {
+    this.datafactoryCephService = datafactoryCephService;
+    this.canonicalObjectMapper = objectMapper.copy()
+        .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+        .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true);
+    this.bucket = bucket;
+    this.enabled = enabled;
+    this.index = Caffeine.newBuilder()
+        .maximumSize(indexSize)
+        .build();
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public boolean isContentAddressed(String cephKey) {
+    return cephKey.startsWith(KEY_PREFIX);
+  }
+
+  public ExcerptResult deduplicate(ExcerptEventDto event, ExcerptTemplate excerptTemplate,
+      Function<String, ExcerptResult> render) {
+    var contentHash = contentHash(event, excerptTemplate);
+    if (contentHash.isEmpty()) {
+      return render.apply(UUID.randomUUID().toString());
+    }
+    var cephKey = KEY_PREFIX + contentHash.get();
+
+    var indexed = index.getIfPresent(cephKey);
+    if (indexed != null) {
+      log.info("Reusing stored excerpt. Key: {}", cephKey);
+      return indexed;
+    }
+
+    var future = new CompletableFuture<ExcerptResult>();
+    var existing = inFlight.putIfAbsent(cephKey, future);
+    if (existing != null) {
+      log.info("Waiting for identical excerpt in progress. Key: {}", cephKey);
+      return join(existing);
+    }
+
+    try {
+      var result = findStored(cephKey).orElseGet(() -> render.apply(cephKey));
+      if (result.getStatus() == COMPLETED) {
+        index.put(cephKey, result);
+      }
+      future.complete(result);
+      return result;
+    } catch (RuntimeException e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(cephKey, future);
+    }
+  }
+
+  private Optional<String> contentHash(ExcerptEventDto event, ExcerptTemplate excerptTemplate) {
+    try {
+      var digest = DigestUtils.getSha256Digest();
+      digest.update(String.valueOf(excerptTemplate.getId()).getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+      digest.update(DigestUtils.sha256(excerptTemplate.getTemplate()));
+      digest.update(canonicalObjectMapper.writeValueAsBytes(event.getExcerptInputData()));
+      return Optional.of(Hex.encodeHexString(digest.digest()));
+    } catch (JsonProcessingException e) {
+      log.warn("Excerpt input data can not be hashed, skipping deduplication", e);
+      return Optional.empty();
+    }
+  }
+
+  private Optional<ExcerptResult> findStored(String cephKey) {
+    try {
+      return datafactoryCephService.getMetadata(bucket, Set.of(cephKey)).stream()
+          .filter(metadata -> metadata.getUserMetadata() != null)
+          .map(metadata -> metadata.getUserMetadata().get(CHECKSUM_METADATA))
+          .filter(checksum -> checksum != null)
+          .findFirst()
+          .map(checksum -> {
+            log.info("Reusing stored excerpt. Key: {}", cephKey);
+            return ExcerptResult.completed(cephKey, checksum);
+          });
+    } catch (Exception e) {
+      log.warn("Failed to look up stored excerpt. Key: {}", cephKey, e);
+      return Optional.empty();
+    }
+  }
+
+  private ExcerptResult join(CompletableFuture<ExcerptResult> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+}
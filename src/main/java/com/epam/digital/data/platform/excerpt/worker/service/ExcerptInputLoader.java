@@ -0,0 +1,132 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import static com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus.FAILED;
+
+import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
+import com.epam.digital.data.platform.excerpt.worker.exception.ExcerptProcessingException;
+import com.epam.digital.data.platform.excerpt.worker.exception.ExcerptRetryableException;
+import com.epam.digital.data.platform.integration.ceph.model.CephObject;
+import com.epam.digital.data.platform.integration.ceph.model.CephObjectMetadata;
+import com.epam.digital.data.platform.integration.ceph.service.CephService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ExcerptInputLoader {
+
+  public static final String INPUT_DATA_REFERENCE = "excerptInputDataCephKey";
+
+  private final Logger log = LoggerFactory.getLogger(ExcerptInputLoader.class);
+
+  private final CephService datafactoryCephService;
+  private final ObjectMapper objectMapper;
+  private final String bucket;
+  private final boolean deleteAfterRender;
+
+  public ExcerptInputLoader(
+      CephService datafactoryCephService,
+      ObjectMapper objectMapper,
+      @Value("${datafactory-excerpt-ceph.bucket}") String bucket,
+      @Value("${excerpt.input.delete-after-render}") boolean deleteAfterRender) {
+    this.datafactoryCephService = datafactoryCephService;
+    this.objectMapper = objectMapper;
+    this.bucket = bucket;
+    this.deleteAfterRender = deleteAfterRender;
+  }
+
+  public boolean isReference(ExcerptEventDto event) {
+    return getReference(event).isPresent();
+  }
+
+  public Object load(ExcerptEventDto event) {
+    var cephKey = getReference(event);
+    if (cephKey.isEmpty()) {
+      return event.getExcerptInputData();
+    }
+    log.info("Loading excerpt input data from Ceph. Key: {}", cephKey.get());
+    Optional<CephObject> cephObject;
+    try {
+      cephObject = datafactoryCephService.get(bucket, cephKey.get());
+    } catch (Exception e) {
+      throw new ExcerptRetryableException(
+          "Failed retrieving excerpt input data by key: " + cephKey.get(), null, false, e);
+    }
+    var inputData = cephObject.orElseThrow(() -> new ExcerptProcessingException(FAILED,
+        "Excerpt input data was not found in ceph. Key: " + cephKey.get()));
+
+    try (var content = inputData.getContent()) {
+      return objectMapper.readTree(content);
+    } catch (JsonProcessingException e) {
+      throw new ExcerptProcessingException(FAILED,
+          "Excerpt input data is not valid JSON. Key: " + cephKey.get(), e);
+    } catch (IOException e) {
+      throw new ExcerptRetryableException(
+          "Failed reading excerpt input data. Key: " + cephKey.get(), null, false, e);
+    }
+  }
+
+  public OptionalLong getStoredSize(ExcerptEventDto event) {
+    var cephKey = getReference(event);
+    if (cephKey.isEmpty()) {
+      return OptionalLong.empty();
+    }
+    try {
+      return datafactoryCephService.getMetadata(bucket, Set.of(cephKey.get())).stream()
+          .map(CephObjectMetadata::getContentLength)
+          .filter(Objects::nonNull)
+          .mapToLong(Long::longValue)
+          .findFirst();
+    } catch (Exception e) {
+      log.warn("Failed to look up excerpt input data size. Key: {}", cephKey.get(), e);
+      return OptionalLong.empty();
+    }
+  }
+
+  public void release(ExcerptEventDto event) {
+    if (!deleteAfterRender) {
+      return;
+    }
+    getReference(event).ifPresent(cephKey -> {
+      try {
+        datafactoryCephService.delete(bucket, Set.of(cephKey));
+        log.info("Excerpt input data removed from Ceph. Key: {}", cephKey);
+      } catch (Exception e) {
+        log.warn("Failed to remove excerpt input data from Ceph. Key: {}", cephKey, e);
+      }
+    });
+  }
+
+  private Optional<String> getReference(ExcerptEventDto event) {
+    var inputData = event.getExcerptInputData();
+    if (inputData == null || inputData.size() != 1) {
+      return Optional.empty();
+    }
+    var reference = inputData.get(INPUT_DATA_REFERENCE);
+    return reference instanceof String ? Optional.of((String) reference) : Optional.empty();
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Component
+public class ExcerptLaneRouter {
+
+  private static final double HISTORY_WEIGHT = 0.2;
+
+  private final ExcerptInputLoader excerptInputLoader;
+  private final long inputSizeThreshold;
+  private final long durationThreshold;
+  private final ConcurrentMap<String, Double> durations = new ConcurrentHashMap<>();
+
+  public ExcerptLaneRouter(
+      ExcerptInputLoader excerptInputLoader,
+      @Value("${excerpt.lanes.heavy.input-size-threshold}") DataSize inputSizeThreshold,
+      @Value("${excerpt.lanes.heavy.duration-threshold}") Duration durationThreshold) {
+    this.excerptInputLoader = excerptInputLoader;
+    this.inputSizeThreshold = inputSizeThreshold.toBytes();
+    this.durationThreshold = durationThreshold.toMillis();
+  }
+
+  public Lane route(ExcerptEventDto event) {
+    if (event == null) {
+      return Lane.LIGHT;
+    }
+    var duration = event.getExcerptType() == null ? null : durations.get(event.getExcerptType());
+    if (duration != null && duration >= durationThreshold) {
+      return Lane.HEAVY;
+    }
+    var inputSize = excerptInputLoader.isReference(event)
+        ? excerptInputLoader.getStoredSize(event).orElse(Long.MAX_VALUE)
+        : RenderMemoryBudget.estimateInputSize(event.getExcerptInputData());
+    return inputSize >= inputSizeThreshold ? Lane.HEAVY : Lane.LIGHT;
+  }
+
+  public void recordDuration(String excerptType, Duration duration) {
+    if (excerptType != null) {
+      durations.merge(excerptType, (double) duration.toMillis(),
+          (previous, current) -> previous + HISTORY_WEIGHT * (current - previous));
+    }
+  }
+
+  public enum Lane {
+    LIGHT,
+    HEAVY;
+
+    public String getName() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+  }
+}
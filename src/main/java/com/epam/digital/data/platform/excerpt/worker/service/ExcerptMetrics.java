@@ -0,0 +1,136 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import static com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus.COMPLETED;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ExcerptMetrics {
+
+  public static final String TEMPLATE_LOOKUP = "template-lookup";
+  public static final String INPUT_LOAD = "input-load";
+  public static final String HTML_RENDER = "html-render";
+  public static final String PDF_RENDER = "pdf-render";
+  public static final String CEPH_PUT = "ceph-put";
+  public static final String SIGNING = "signing";
+  public static final String CHECKSUM = "checksum";
+  public static final String DB_UPDATE = "db-update";
+
+  static final String STAGE_TIMER = "excerpt.stage.duration";
+  static final String QUEUE_WAIT_TIMER = "excerpt.kafka.queue.wait";
+  static final String HTML_SIZE = "excerpt.html.size";
+  static final String PDF_SIZE = "excerpt.pdf.size";
+  static final String LANE_DEPTH = "excerpt.lane.depth";
+  static final String LANE_LATENCY = "excerpt.lane.latency";
+  static final String DUPLICATES_SKIPPED = "excerpt.duplicates.skipped";
+
+  static final String SUCCESS = "success";
+  static final String FAILURE = "failure";
+  static final String UNKNOWN_TYPE = "unknown";
+
+  private final MeterRegistry meterRegistry;
+
+  public ExcerptMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  public <T> T recordStage(String stage, String excerptType, Supplier<T> action) {
+    var sample = Timer.start(meterRegistry);
+    var outcome = FAILURE;
+    try {
+      var result = action.get();
+      outcome = SUCCESS;
+      return result;
+    } finally {
+      sample.stop(Timer.builder(STAGE_TIMER)
+          .description("Duration of an excerpt generation stage")
+          .tags("stage", stage, "excerptType", excerptType(excerptType), "outcome", outcome)
+          .register(meterRegistry));
+    }
+  }
+
+  public void recordStage(String stage, String excerptType, Runnable action) {
+    recordStage(stage, excerptType, () -> {
+      action.run();
+      return null;
+    });
+  }
+
+  public void recordSizes(String excerptType, ExcerptResult result, long htmlSize, long pdfSize) {
+    var outcome = outcome(result);
+    DistributionSummary.builder(HTML_SIZE)
+        .description("Size of the rendered excerpt HTML")
+        .baseUnit("bytes")
+        .tags("excerptType", excerptType(excerptType), "outcome", outcome)
+        .register(meterRegistry)
+        .record(htmlSize);
+    DistributionSummary.builder(PDF_SIZE)
+        .description("Size of the rendered excerpt PDF")
+        .baseUnit("bytes")
+        .tags("excerptType", excerptType(excerptType), "outcome", outcome)
+        .register(meterRegistry)
+        .record(pdfSize);
+  }
+
+  public void recordQueueWait(String excerptType, ExcerptResult result, Duration wait) {
+    Timer.builder(QUEUE_WAIT_TIMER)
+        .description("Time between producing an excerpt event and starting its processing")
+        .tags("excerptType", excerptType(excerptType), "outcome", outcome(result))
+        .register(meterRegistry)
+        .record(wait.isNegative() ? Duration.ZERO : wait);
+  }
+
+  public void registerLaneDepth(String lane, Supplier<Number> depth) {
+    Gauge.builder(LANE_DEPTH, depth)
+        .description("Number of excerpt events queued or processing in a lane")
+        .tags("lane", lane)
+        .register(meterRegistry);
+  }
+
+  public void recordLaneLatency(String lane, String excerptType, Duration latency) {
+    Timer.builder(LANE_LATENCY)
+        .description("Time between producing an excerpt event and finishing it in a lane")
+        .tags("lane", lane, "excerptType", excerptType(excerptType))
+        .register(meterRegistry)
+        .record(latency.isNegative() ? Duration.ZERO : latency);
+  }
+
+  public void recordDuplicateSkipped(String excerptType, String source) {
+    Counter.builder(DUPLICATES_SKIPPED)
+        .description("Number of redelivered excerpt events skipped for completed records")
+        .tags("excerptType", excerptType(excerptType), "source", source)
+        .register(meterRegistry)
+        .increment();
+  }
+
+  private String outcome(ExcerptResult result) {
+    return result != null && result.getStatus() == COMPLETED ? SUCCESS : FAILURE;
+  }
+
+  private String excerptType(String excerptType) {
+    return excerptType == null ? UNKNOWN_TYPE : excerptType;
+  }
+}
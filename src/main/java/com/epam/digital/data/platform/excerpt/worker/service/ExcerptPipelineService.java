@@ -0,0 +1,100 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import static com.epam.digital.data.platform.excerpt.worker.service.ExcerptMetrics.DB_UPDATE;
+
+import com.epam.digital.data.platform.excerpt.dao.ExcerptTemplate;
+import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
+import com.epam.digital.data.platform.excerpt.worker.exception.ExcerptProcessingException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ExcerptPipelineService {
+
+  private final Logger log = LoggerFactory.getLogger(ExcerptPipelineService.class);
+
+  private final ExcerptService excerptService;
+  private final ExcerptMetrics excerptMetrics;
+  private final Executor ioTaskExecutor;
+  private final int depth;
+
+  public ExcerptPipelineService(
+      ExcerptService excerptService,
+      ExcerptMetrics excerptMetrics,
+      @Qualifier("ioTaskExecutor") Executor ioTaskExecutor,
+      @Value("${excerpt.pipeline.depth}") int depth) {
+    this.excerptService = excerptService;
+    this.excerptMetrics = excerptMetrics;
+    this.ioTaskExecutor = ioTaskExecutor;
+    this.depth = Math.max(depth, 1);
+  }
+
+  public Map<UUID, ExcerptResult> generateExcerpts(List<ExcerptEventDto> events) {
+    log.info("Pipelining {} excerpts, depth {}", events.size(), depth);
+    var completed = excerptService.findCompleted(events);
+    var templates = new HashMap<String, Optional<ExcerptTemplate>>();
+    var inFlight = new Semaphore(depth);
+    var futures = new LinkedHashMap<UUID, CompletableFuture<ExcerptResult>>();
+    for (var event : events) {
+      if (completed.containsKey(event.getRecordId())) {
+        futures.put(event.getRecordId(),
+            CompletableFuture.completedFuture(completed.get(event.getRecordId())));
+        continue;
+      }
+      inFlight.acquireUninterruptibly();
+      var excerptTemplate =
+          templates.computeIfAbsent(event.getExcerptType(), excerptService::findTemplate);
+      var future = excerptTemplate
+          .map(template -> excerptService.renderAndStoreAsync(event, template, ioTaskExecutor))
+          .orElseGet(() -> CompletableFuture.completedFuture(excerptService.templateNotFound()))
+          .thenApplyAsync(result -> saveResult(event, result), ioTaskExecutor);
+      future.whenComplete((result, e) -> inFlight.release());
+      futures.put(event.getRecordId(), future);
+    }
+
+    CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new))
+        .exceptionally(e -> null)
+        .join();
+    var results = new LinkedHashMap<UUID, ExcerptResult>();
+    futures.forEach((recordId, future) -> results.put(recordId, future.join()));
+    return results;
+  }
+
+  private ExcerptResult saveResult(ExcerptEventDto event, ExcerptResult result) {
+    try {
+      excerptMetrics.recordStage(DB_UPDATE, event.getExcerptType(),
+          () -> excerptService.saveResult(event.getRecordId(), result));
+    } catch (ExcerptProcessingException e) {
+      log.error("Can not update excerpt record", e);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import static com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus.COMPLETED;
+
+import com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus;
+import com.epam.digital.data.platform.excerpt.worker.exception.ExcerptProcessingException;
+
+public class ExcerptResult {
+
+  private final ExcerptProcessingStatus status;
+  private final String excerptKey;
+  private final String checksum;
+  private final String statusDetails;
+
+  private ExcerptResult(ExcerptProcessingStatus status, String excerptKey, String checksum,
+      String statusDetails) {
+    this.status = status;
+    this.excerptKey = excerptKey;
+    this.checksum = checksum;
+    this.statusDetails = statusDetails;
+  }
+
+  public static ExcerptResult completed(String excerptKey, String checksum) {
+    return new ExcerptResult(COMPLETED, excerptKey, checksum, null);
+  }
+
+  public static ExcerptResult failed(ExcerptProcessingException exception) {
+    return new ExcerptResult(exception.getStatus(), null, null, exception.getDetails());
+  }
+
+  public ExcerptProcessingStatus getStatus() {
+    return status;
+  }
+
+  public String getExcerptKey() {
+    return excerptKey;
+  }
+
+  public String getChecksum() {
+    return checksum;
+  }
+
+  public String getStatusDetails() {
+    return statusDetails;
+  }
+}
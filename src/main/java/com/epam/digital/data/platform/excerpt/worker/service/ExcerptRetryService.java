@@ -0,0 +1,224 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import static com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus.IN_PROGRESS;
+
+import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
+import com.epam.digital.data.platform.excerpt.model.Request;
+import com.epam.digital.data.platform.excerpt.worker.exception.ExcerptProcessingException;
+import com.epam.digital.data.platform.excerpt.worker.exception.ExcerptRetryableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.PreDestroy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.retrytopic.RetryTopicHeaders;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ExcerptRetryService {
+
+  public static final String CEPH_KEY_HEADER = "excerpt-ceph-key";
+  public static final String SIGNED_HEADER = "excerpt-signed";
+
+  static final String RETRY_SCHEDULED = "excerpt.retry.scheduled";
+  static final String PARKED_GAUGE = "excerpt.retry.parked";
+
+  private final Logger log = LoggerFactory.getLogger(ExcerptRetryService.class);
+
+  private final KafkaTemplate<String, Object> kafkaTemplate;
+  private final String retryTopic;
+  private final boolean enabled;
+  private final int maxParked;
+  private final Duration sendTimeout;
+  private final long firstRetryDelay;
+  private final MeterRegistry meterRegistry;
+  private final Map<String, ExcerptContent> parked = new LinkedHashMap<>();
+  private final Map<UUID, Headers> sourceHeaders = new ConcurrentHashMap<>();
+
+  public ExcerptRetryService(
+      @Qualifier("excerptRetryKafkaTemplate") KafkaTemplate<String, Object> kafkaTemplate,
+      @Value("\u0023{kafkaProperties.topics['generate-excerpt-retry']}") String retryTopic,
+      @Value("${excerpt.retry.enabled}") boolean enabled,
+      @Value("${excerpt.retry.max-parked}") int maxParked,
+      @Value("${excerpt.retry.send-timeout}") Duration sendTimeout,
+      @Value("${excerpt.retry.backoff.delay}") long firstRetryDelay,
+      MeterRegistry meterRegistry) {
+    this.kafkaTemplate = kafkaTemplate;
+    this.retryTopic = retryTopic;
+    this.enabled = enabled;
+    this.maxParked = maxParked;
+    this.sendTimeout = sendTimeout;
+    this.firstRetryDelay = firstRetryDelay;
+    this.meterRegistry = meterRegistry;
+
+    Gauge.builder(PARKED_GAUGE, this, ExcerptRetryService::getParkedCount)
+        .description("Number of rendered excerpts kept locally until their retry")
+        .register(meterRegistry);
+  }
+
+  public ExcerptResult schedule(ExcerptEventDto event, ExcerptRetryableException exception) {
+    return schedule(event, exception, sourceHeaders.get(event.getRecordId()));
+  }
+
+  public boolean reschedule(ExcerptEventDto event, Headers source, RuntimeException cause) {
+    var result = schedule(event, new ExcerptRetryableException(
+        "Excerpt generation failed unexpectedly", null, false, cause), source);
+    return result.getStatus() == IN_PROGRESS;
+  }
+
+  private ExcerptResult schedule(ExcerptEventDto event, ExcerptRetryableException exception,
+      Headers source) {
+    if (!enabled) {
+      log.error("Can not generate excerpt", exception);
+      return ExcerptResult.failed(exception);
+    }
+    var headers = new RecordHeaders();
+    if (source != null) {
+      source.forEach(header -> {
+        if (!isRetryHeader(header.key())) {
+          headers.add(header);
+        }
+      });
+    }
+    retryHeaders(exception).forEach(headers::add);
+    headers.add(RetryTopicHeaders.DEFAULT_HEADER_BACKOFF_TIMESTAMP,
+        BigInteger.valueOf(System.currentTimeMillis() + firstRetryDelay).toByteArray());
+    var record = new ProducerRecord<String, Object>(retryTopic, null,
+        String.valueOf(event.getRecordId()), new Request<>(event), headers);
+    try {
+      kafkaTemplate.send(record).get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return scheduleFailed(exception, e);
+    } catch (ExecutionException | TimeoutException | KafkaException e) {
+      return scheduleFailed(exception, e);
+    }
+
+    log.warn("Excerpt generation failed, retry scheduled. RecordId: {}. CephKey: {}. Reason: {}",
+        event.getRecordId(), exception.getCephKey(), exception.getDetails(), exception);
+    Counter.builder(RETRY_SCHEDULED)
+        .description("Number of excerpts rescheduled after a transient failure")
+        .tags("excerptType", event.getExcerptType() == null ? "unknown" : event.getExcerptType())
+        .register(meterRegistry)
+        .increment();
+    return ExcerptResult.failed(new ExcerptProcessingException(IN_PROGRESS,
+        "Retry scheduled: " + exception.getDetails()));
+  }
+
+  public void trackSourceHeaders(UUID recordId, Headers headers) {
+    if (recordId != null && headers != null) {
+      sourceHeaders.put(recordId, headers);
+    }
+  }
+
+  public void releaseSourceHeaders(UUID recordId) {
+    if (recordId != null) {
+      sourceHeaders.remove(recordId);
+    }
+  }
+
+  public static Headers retryHeaders(ExcerptRetryableException exception) {
+    var headers = new RecordHeaders();
+    if (exception.getCephKey() != null) {
+      headers.add(CEPH_KEY_HEADER, exception.getCephKey().getBytes(StandardCharsets.UTF_8));
+    }
+    if (exception.isSigned()) {
+      headers.add(SIGNED_HEADER, Boolean.TRUE.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    return headers;
+  }
+
+  public void park(String cephKey, ExcerptContent pdf) {
+    if (!enabled) {
+      pdf.close();
+      return;
+    }
+    ExcerptContent evicted = null;
+    synchronized (parked) {
+      var previous = parked.put(cephKey, pdf);
+      if (previous != null && previous != pdf) {
+        previous.close();
+      }
+      if (parked.size() > maxParked) {
+        var eldest = parked.keySet().iterator().next();
+        evicted = parked.remove(eldest);
+        log.warn("Too many excerpts waiting for retry, dropping rendered PDF. CephKey: {}",
+            eldest);
+      }
+    }
+    if (evicted != null) {
+      evicted.close();
+    }
+  }
+
+  public Optional<ExcerptContent> unpark(String cephKey) {
+    synchronized (parked) {
+      return Optional.ofNullable(parked.remove(cephKey));
+    }
+  }
+
+  public void discard(String cephKey) {
+    unpark(cephKey).ifPresent(ExcerptContent::close);
+  }
+
+  private static boolean isRetryHeader(String key) {
+    return CEPH_KEY_HEADER.equals(key) || SIGNED_HEADER.equals(key)
+        || RetryTopicHeaders.DEFAULT_HEADER_BACKOFF_TIMESTAMP.equals(key);
+  }
+
+  int getParkedCount() {
+    synchronized (parked) {
+      return parked.size();
+    }
+  }
+
+  @PreDestroy
+  void close() {
+    synchronized (parked) {
+      parked.values().forEach(ExcerptContent::close);
+      parked.clear();
+    }
+  }
+
+  private ExcerptResult scheduleFailed(ExcerptRetryableException exception, Exception cause) {
+    log.error("Can not schedule excerpt retry. CephKey: {}", exception.getCephKey(), cause);
+    discard(exception.getCephKey());
+    log.error("Can not generate excerpt", exception);
+    return ExcerptResult.failed(exception);
+  }
+}
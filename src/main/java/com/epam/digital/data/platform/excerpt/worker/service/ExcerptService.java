@@ -18,29 +18,45 @@ package com.epam.digital.data.platform.excerpt.worker.service;
 
 import static com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus.COMPLETED;
 import static com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus.FAILED;
+import static com.epam.digital.data.platform.excerpt.worker.service.ExcerptMetrics.CEPH_PUT;
+import static com.epam.digital.data.platform.excerpt.worker.service.ExcerptMetrics.CHECKSUM;
+import static com.epam.digital.data.platform.excerpt.worker.service.ExcerptMetrics.DB_UPDATE;
+import static com.epam.digital.data.platform.excerpt.worker.service.ExcerptMetrics.HTML_RENDER;
+import static com.epam.digital.data.platform.excerpt.worker.service.ExcerptMetrics.INPUT_LOAD;
+import static com.epam.digital.data.platform.excerpt.worker.service.ExcerptMetrics.PDF_RENDER;
+import static com.epam.digital.data.platform.excerpt.worker.service.ExcerptMetrics.SIGNING;
+import static com.epam.digital.data.platform.excerpt.worker.service.ExcerptMetrics.TEMPLATE_LOOKUP;
 
-import com.epam.digital.data.platform.dso.api.dto.SignFileRequestDto;
 import com.epam.digital.data.platform.dso.api.dto.SignFileResponseDto;
-import com.epam.digital.data.platform.dso.client.DigitalSignatureFileRestClient;
-import com.epam.digital.data.platform.excerpt.dao.ExcerptRecord;
+import com.epam.digital.data.platform.excerpt.dao.ExcerptTemplate;
 import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
 import com.epam.digital.data.platform.excerpt.worker.exception.ExcerptProcessingException;
+import com.epam.digital.data.platform.excerpt.worker.exception.ExcerptRetryableException;
+import com.epam.digital.data.platform.excerpt.worker.repository.ExcerptRecordBatchRepository;
 import com.epam.digital.data.platform.excerpt.worker.repository.ExcerptRecordRepository;
-import com.epam.digital.data.platform.excerpt.worker.repository.ExcerptTemplateRepository;
 import com.epam.digital.data.platform.integration.ceph.model.CephObject;
 import com.epam.digital.data.platform.integration.ceph.service.CephService;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
 
 @Service
 public class ExcerptService {
@@ -48,137 +64,499 @@ public class ExcerptService {
   private final Logger log = LoggerFactory.getLogger(ExcerptService.class);
 
   static final String EXCERPT_CONTENT_TYPE = "application/octet-stream";
+  static final String BATCH_EXCERPT_TYPE = "batch";
 
-  private final ExcerptTemplateRepository templateRepository;
+  private final ExcerptTemplateCache templateCache;
   private final ExcerptRecordRepository recordRepository;
+  private final ExcerptRecordBatchRepository recordBatchRepository;
   private final HtmlRenderer htmlRenderer;
   private final PdfRenderer pdfRenderer;
   private final CephService datafactoryCephService;
-  private final DigitalSignatureFileRestClient digitalSignatureFileRestClient;
+  private final ExcerptInputLoader excerptInputLoader;
+  private final ExcerptDeduplicator excerptDeduplicator;
+  private final ExcerptRetryService excerptRetryService;
+  private final CompletedExcerptFilter completedExcerptFilter;
+  private final ExcerptMetrics excerptMetrics;
+  private final RenderMemoryBudget renderMemoryBudget;
+  private final ExcerptLaneRouter excerptLaneRouter;
+  private final Executor renderTaskExecutor;
+  private final ExcerptSigningClient excerptSigningClient;
   private final boolean isDigitalSignatureEnabled;
   private final String bucket;
+  private final DataSize spillThreshold;
 
   public ExcerptService(
-      ExcerptTemplateRepository templateRepository,
+      ExcerptTemplateCache templateCache,
       ExcerptRecordRepository recordRepository,
+      ExcerptRecordBatchRepository recordBatchRepository,
       HtmlRenderer htmlRenderer,
       PdfRenderer pdfRenderer,
       CephService datafactoryCephService,
-      DigitalSignatureFileRestClient digitalSignatureFileRestClient,
+      ExcerptInputLoader excerptInputLoader,
+      ExcerptDeduplicator excerptDeduplicator,
+      ExcerptRetryService excerptRetryService,
+      CompletedExcerptFilter completedExcerptFilter,
+      ExcerptMetrics excerptMetrics,
+      RenderMemoryBudget renderMemoryBudget,
+      ExcerptLaneRouter excerptLaneRouter,
+      @Qualifier("renderTaskExecutor") Executor renderTaskExecutor,
+      ExcerptSigningClient excerptSigningClient,
       @Value("${data-platform.signature.enabled}") boolean isDigitalSignatureEnabled,
-      @Value("${datafactory-excerpt-ceph.bucket}") String bucket) {
-    this.templateRepository = templateRepository;
+      @Value("${datafactory-excerpt-ceph.bucket}") String bucket,
+      @Value("${excerpt.storage.spill-threshold}") DataSize spillThreshold) {
+    this.templateCache = templateCache;
     this.htmlRenderer = htmlRenderer;
     this.recordRepository = recordRepository;
+    this.recordBatchRepository = recordBatchRepository;
     this.pdfRenderer = pdfRenderer;
     this.datafactoryCephService = datafactoryCephService;
-    this.digitalSignatureFileRestClient = digitalSignatureFileRestClient;
+    this.excerptInputLoader = excerptInputLoader;
+    this.excerptDeduplicator = excerptDeduplicator;
+    this.excerptRetryService = excerptRetryService;
+    this.completedExcerptFilter = completedExcerptFilter;
+    this.excerptMetrics = excerptMetrics;
+    this.renderMemoryBudget = renderMemoryBudget;
+    this.excerptLaneRouter = excerptLaneRouter;
+    this.renderTaskExecutor = renderTaskExecutor;
+    this.excerptSigningClient = excerptSigningClient;
     this.isDigitalSignatureEnabled = isDigitalSignatureEnabled;
     this.bucket = bucket;
+    this.spillThreshold = spillThreshold;
   }
 
-  public void generateExcerpt(ExcerptEventDto event) {
+  public ExcerptResult generateExcerpt(ExcerptEventDto event) {
+    return generateExcerpt(event, renderTaskExecutor);
+  }
+
+  public ExcerptResult generateExcerpt(ExcerptEventDto event, Executor renderExecutor) {
+    var completed = completedExcerptFilter.findCompleted(event);
+    if (completed.isPresent()) {
+      return completed.get();
+    }
+
+    var result = findTemplate(event.getExcerptType())
+        .map(excerptTemplate -> renderAndStore(event, excerptTemplate, renderExecutor))
+        .orElseGet(this::templateNotFound);
+
+    excerptMetrics.recordStage(DB_UPDATE, event.getExcerptType(),
+        () -> saveResult(event.getRecordId(), result));
+    return result;
+  }
+
+  public Map<UUID, ExcerptResult> findCompleted(List<ExcerptEventDto> events) {
+    return completedExcerptFilter.findCompleted(events);
+  }
+
+  public Optional<ExcerptTemplate> findTemplate(String excerptType) {
+    return excerptMetrics.recordStage(TEMPLATE_LOOKUP, excerptType,
+        () -> templateCache.findByName(excerptType));
+  }
+
+  public ExcerptResult renderAndStore(ExcerptEventDto event, ExcerptTemplate excerptTemplate) {
+    return renderAndStore(event, excerptTemplate, renderTaskExecutor);
+  }
+
+  private ExcerptResult renderAndStore(ExcerptEventDto event, ExcerptTemplate excerptTemplate,
+      Executor renderExecutor) {
     try {
-      var excerptTemplate = templateRepository
-          .findFirstByTemplateName(event.getExcerptType())
-          .orElseThrow(() -> new ExcerptProcessingException(FAILED, "Excerpt template not found"));
+      if (canDeduplicate(event)) {
+        return excerptDeduplicator.deduplicate(event, excerptTemplate,
+            cephKey -> renderAndStore(event, excerptTemplate, cephKey, renderExecutor));
+      }
+      return renderAndStore(event, excerptTemplate, UUID.randomUUID().toString(),
+          renderExecutor);
+    } catch (ExcerptRetryableException e) {
+      return excerptRetryService.schedule(event, e);
+    }
+  }
 
-      log.info("Generating HTML");
-      var html = htmlRenderer.render(excerptTemplate, event.getExcerptInputData());
+  public ExcerptResult resumeExcerpt(ExcerptEventDto event, String storedCephKey,
+      boolean signed) {
+    var completed = completedExcerptFilter.findCompleted(event);
+    if (completed.isPresent()) {
+      excerptRetryService.discard(storedCephKey);
+      return completed.get();
+    }
+    var cephKey = storedCephKey == null ? UUID.randomUUID().toString() : storedCephKey;
+    log.info("Resuming excerpt generation. RecordId: {}. CephKey: {}", event.getRecordId(),
+        cephKey);
+    var result = signed && storedCephKey != null
+        ? completeStored(event, cephKey, true)
+        : excerptRetryService.unpark(cephKey)
+            .map(pdf -> storeParked(event, pdf, cephKey))
+            .orElseGet(() -> isStored(cephKey)
+                ? completeStored(event, cephKey, false)
+                : findTemplate(event.getExcerptType())
+                    .map(excerptTemplate -> renderAndStore(event, excerptTemplate, cephKey,
+                        renderTaskExecutor))
+                    .orElseGet(this::templateNotFound));
 
-      log.info("Generating PDF");
-      var pdf = pdfRenderer.render(html);
+    excerptMetrics.recordStage(DB_UPDATE, event.getExcerptType(),
+        () -> saveResult(event.getRecordId(), result));
+    return result;
+  }
 
-      savePdf(event, pdf);
-      log.info("Excerpt generated");
+  public void retriesExhausted(ExcerptEventDto event, String cephKey) {
+    excerptRetryService.discard(cephKey);
+    if (cephKey != null && !excerptDeduplicator.isContentAddressed(cephKey)) {
+      try {
+        datafactoryCephService.delete(bucket, Set.of(cephKey));
+      } catch (Exception e) {
+        log.warn("Failed to remove excerpt after retries were exhausted. Key: {}", cephKey, e);
+      }
+    }
+    var exception = new ExcerptProcessingException(FAILED,
+        "Excerpt generation retries exhausted");
+    log.error("Can not generate excerpt. RecordId: {}", event.getRecordId(), exception);
+    excerptMetrics.recordStage(DB_UPDATE, event.getExcerptType(),
+        () -> saveResult(event.getRecordId(), ExcerptResult.failed(exception)));
+  }
+
+  public CompletableFuture<ExcerptResult> renderAndStoreAsync(ExcerptEventDto event,
+      ExcerptTemplate excerptTemplate, Executor ioExecutor) {
+    if (canDeduplicate(event)) {
+      return CompletableFuture.supplyAsync(() -> renderAndStore(event, excerptTemplate),
+          ioExecutor);
+    }
+    var cephKey = UUID.randomUUID().toString();
+    var inputData = excerptInputLoader.isReference(event)
+        ? CompletableFuture.supplyAsync(() -> loadInput(event), ioExecutor)
+        : CompletableFuture.completedFuture((Object) event.getExcerptInputData());
+    return inputData
+        .thenComposeAsync(data -> submitRender(event, excerptTemplate, data, renderTaskExecutor),
+            ioExecutor)
+        .thenApplyAsync(rendered -> store(event, rendered, cephKey), ioExecutor)
+        .exceptionally(throwable -> renderFailed(event, throwable));
+  }
+
+  private ExcerptResult renderAndStore(ExcerptEventDto event, ExcerptTemplate excerptTemplate,
+      String cephKey, Executor renderExecutor) {
+    try {
+      return store(event, render(event, excerptTemplate, renderExecutor), cephKey);
+    } catch (ExcerptRetryableException e) {
+      throw e;
     } catch (ExcerptProcessingException e) {
       log.error("Can not generate excerpt", e);
+      return ExcerptResult.failed(e);
+    }
+  }
 
-      var excerptRecord = getRecordById(event.getRecordId());
-      excerptRecord.setStatus(e.getStatus());
-      excerptRecord.setStatusDetails(e.getDetails());
+  private ExcerptResult store(ExcerptEventDto event, RenderedExcerpt rendered, String cephKey) {
+    try (rendered) {
+      ExcerptResult result;
+      try {
+        result = savePdf(event, rendered.pdf, cephKey);
+      } catch (ExcerptRetryableException e) {
+        if (!e.isStored()) {
+          excerptRetryService.park(cephKey, rendered.detachPdf());
+        }
+        throw e;
+      }
+      if (result.getStatus() == COMPLETED) {
+        excerptInputLoader.release(event);
+      }
+      excerptMetrics.recordSizes(event.getExcerptType(), result, rendered.htmlSize,
+          rendered.pdf.getSize());
+      return result;
+    }
+  }
 
-      excerptRecord.setUpdatedAt(LocalDateTime.now());
-      recordRepository.save(excerptRecord);
+  private ExcerptResult storeParked(ExcerptEventDto event, ExcerptContent pdf, String cephKey) {
+    try {
+      var result = savePdf(event, pdf, cephKey);
+      if (result.getStatus() == COMPLETED) {
+        excerptInputLoader.release(event);
+      }
+      pdf.close();
+      return result;
+    } catch (ExcerptRetryableException e) {
+      if (e.isStored()) {
+        pdf.close();
+      } else {
+        excerptRetryService.park(cephKey, pdf);
+      }
+      throw e;
+    } catch (RuntimeException e) {
+      pdf.close();
+      throw e;
     }
   }
 
-  private void savePdf(ExcerptEventDto event, byte[] bytes) {
-    var cephKey = UUID.randomUUID().toString();
+  private boolean isStored(String cephKey) {
+    try {
+      return Boolean.TRUE.equals(datafactoryCephService.exist(bucket, cephKey));
+    } catch (Exception e) {
+      throw new ExcerptRetryableException("Failed checking file in ceph", cephKey, false, e);
+    }
+  }
 
-    saveFileToCeph(cephKey, bytes);
+  private ExcerptResult completeStored(ExcerptEventDto event, String cephKey, boolean signed) {
+    var excerptType = event.getExcerptType();
+    try {
+      String checksum;
+      if (!shouldSign(event)) {
+        checksum = excerptMetrics.recordStage(CHECKSUM, excerptType,
+            () -> getSignedChecksum(cephKey));
+      } else if (signed) {
+        checksum = getChecksumOfSigned(cephKey, excerptType);
+      } else {
+        checksum = signFileAndGetChecksum(cephKey, excerptType);
+      }
+      excerptInputLoader.release(event);
+      log.info("Excerpt generated");
+      return ExcerptResult.completed(cephKey, checksum);
+    } catch (ExcerptRetryableException e) {
+      throw e;
+    } catch (ExcerptProcessingException e) {
+      log.error("Can not generate excerpt", e);
+      return ExcerptResult.failed(e);
+    }
+  }
 
-    var shouldSign = event.isRequiresSystemSignature() && isDigitalSignatureEnabled;
-    String checksum = shouldSign ? signFileAndGetChecksum(cephKey) : DigestUtils.sha256Hex(bytes);
+  private ExcerptResult renderFailed(ExcerptEventDto event, Throwable throwable) {
+    var cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+    if (cause instanceof ExcerptRetryableException) {
+      return excerptRetryService.schedule(event, (ExcerptRetryableException) cause);
+    }
+    if (cause instanceof ExcerptProcessingException) {
+      log.error("Can not generate excerpt", cause);
+      return ExcerptResult.failed((ExcerptProcessingException) cause);
+    }
+    throw throwable instanceof CompletionException
+        ? (CompletionException) throwable : new CompletionException(throwable);
+  }
 
-    updateExcerpt(event.getRecordId(), cephKey, checksum);
+  private RenderedExcerpt render(ExcerptEventDto event, ExcerptTemplate excerptTemplate,
+      Executor renderExecutor) {
+    var inputData = loadInput(event);
+    try {
+      return submitRender(event, excerptTemplate, inputData, renderExecutor).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
   }
 
-  private void saveFileToCeph(String cephKey, byte[] bytes) {
-    log.info("Storing Excerpt to Ceph. Key: {}", cephKey);
+  private CompletableFuture<RenderedExcerpt> submitRender(ExcerptEventDto event,
+      ExcerptTemplate excerptTemplate, Object inputData, Executor renderExecutor) {
+    var reservation = renderMemoryBudget.reserve(event.getExcerptType(), inputData);
     try {
-      datafactoryCephService.put(
-          bucket, cephKey, EXCERPT_CONTENT_TYPE, Collections.emptyMap(), new ByteArrayInputStream(bytes));
-    } catch (Exception e) {
-      throw new ExcerptProcessingException(FAILED, "Failed saving file to ceph", e);
+      return CompletableFuture.supplyAsync(
+          () -> renderPdf(event, excerptTemplate, inputData, reservation), renderExecutor);
+    } catch (RuntimeException e) {
+      reservation.close();
+      throw e;
     }
   }
 
-  private String signFileAndGetChecksum(String cephKey) {
-    log.info("Signing Excerpt. Key: {}", cephKey);
-    SignFileResponseDto signExcerptResponse;
+  private Object loadInput(ExcerptEventDto event) {
+    if (!excerptInputLoader.isReference(event)) {
+      return event.getExcerptInputData();
+    }
+    return excerptMetrics.recordStage(INPUT_LOAD, event.getExcerptType(),
+        () -> excerptInputLoader.load(event));
+  }
+
+  private RenderedExcerpt renderPdf(ExcerptEventDto event, ExcerptTemplate excerptTemplate,
+      Object inputData, RenderMemoryBudget.Reservation reservation) {
+    var excerptType = event.getExcerptType();
+    ExcerptContent pdf = null;
     try {
-      signExcerptResponse = digitalSignatureFileRestClient.sign(new SignFileRequestDto(cephKey));
-    } catch (Exception e) {
-      throw new ExcerptProcessingException(FAILED, "Excerpt signing failed. Key: " + cephKey, e);
+      var startedAt = System.nanoTime();
+      log.info("Generating HTML");
+      var html = excerptMetrics.recordStage(HTML_RENDER, excerptType,
+          () -> htmlRenderer.render(excerptTemplate, inputData));
+
+      log.info("Generating PDF");
+      pdf = new ExcerptContent(spillThreshold.toBytes());
+      var output = pdf.getOutputStream();
+      excerptMetrics.recordStage(PDF_RENDER, excerptType, () -> pdfRenderer.render(html, output));
+      excerptLaneRouter.recordDuration(excerptType,
+          Duration.ofNanos(System.nanoTime() - startedAt));
+      var htmlSize = RenderMemoryBudget.utf8Length(html);
+      var pdfHeapSize = pdf.isInMemory() ? pdf.getSize() : 0;
+      reservation.recordUsage(htmlSize, pdfHeapSize);
+      reservation.shrinkTo(pdfHeapSize);
+      return new RenderedExcerpt(htmlSize, pdf, reservation);
+    } catch (RuntimeException e) {
+      if (pdf != null) {
+        pdf.close();
+      }
+      reservation.close();
+      throw e;
+    }
+  }
+
+  public void saveResult(UUID recordId, ExcerptResult result) {
+    log.info("Updating excerpt record. RecordId: {}. Status: {}. CephKey: {}. Checksum: {}",
+        recordId, result.getStatus(), result.getExcerptKey(), result.getChecksum());
+    if (updateRecord(recordId, result) == 0) {
+      throw new ExcerptProcessingException(FAILED, "Record not found. Id: " + recordId);
     }
+    completedExcerptFilter.markCompleted(recordId, result);
+    log.info("Excerpt record updated");
+  }
+
+  @Transactional
+  public void saveResults(Map<UUID, ExcerptResult> results) {
+    log.info("Updating {} excerpt records", results.size());
+    excerptMetrics.recordStage(DB_UPDATE, BATCH_EXCERPT_TYPE, () -> {
+      var updated = recordBatchRepository.updateResults(results, LocalDateTime.now());
+      results.forEach((recordId, result) -> {
+        if (updated.contains(recordId)) {
+          completedExcerptFilter.markCompleted(recordId, result);
+        } else {
+          log.error("Record not found. Id: {}", recordId);
+        }
+      });
+    });
+    log.info("Excerpt records updated");
+  }
+
+  public ExcerptResult templateNotFound() {
+    var exception = new ExcerptProcessingException(FAILED, "Excerpt template not found");
+    log.error("Can not generate excerpt", exception);
+    return ExcerptResult.failed(exception);
+  }
+
+  private ExcerptResult savePdf(ExcerptEventDto event, ExcerptContent pdf, String cephKey) {
+    var excerptType = event.getExcerptType();
+    try {
+      saveFileToCeph(cephKey, pdf, excerptType);
+
+      String checksum = shouldSign(event)
+          ? signFileAndGetChecksum(cephKey, excerptType)
+          : excerptMetrics.recordStage(CHECKSUM, excerptType, pdf::getChecksum);
+
+      log.info("Excerpt generated");
+      return ExcerptResult.completed(cephKey, checksum);
+    } catch (ExcerptRetryableException e) {
+      throw e;
+    } catch (ExcerptProcessingException e) {
+      log.error("Can not generate excerpt", e);
+      return ExcerptResult.failed(e);
+    }
+  }
+
+  private void saveFileToCeph(String cephKey, ExcerptContent pdf, String excerptType) {
+    log.info("Storing Excerpt to Ceph. Key: {}. Size: {}. In memory: {}",
+        cephKey, pdf.getSize(), pdf.isInMemory());
+    Map<String, String> userMetadata = excerptDeduplicator.isContentAddressed(cephKey)
+        ? Map.of(ExcerptDeduplicator.CHECKSUM_METADATA, pdf.getChecksum())
+        : Collections.emptyMap();
+    excerptMetrics.recordStage(CEPH_PUT, excerptType, () -> {
+      try (var content = pdf.getInputStream()) {
+        datafactoryCephService.put(bucket, cephKey, EXCERPT_CONTENT_TYPE, userMetadata, content);
+      } catch (Exception e) {
+        throw new ExcerptRetryableException("Failed saving file to ceph", cephKey, false, e);
+      }
+    });
+  }
+
+  private boolean canDeduplicate(ExcerptEventDto event) {
+    return excerptDeduplicator.isEnabled() && !shouldSign(event)
+        && !excerptInputLoader.isReference(event);
+  }
+
+  private boolean shouldSign(ExcerptEventDto event) {
+    return event.isRequiresSystemSignature() && isDigitalSignatureEnabled;
+  }
+
+  private String signFileAndGetChecksum(String cephKey, String excerptType) {
+    log.info("Signing Excerpt. Key: {}", cephKey);
+    SignFileResponseDto signExcerptResponse = excerptMetrics.recordStage(SIGNING, excerptType,
+        () -> {
+          try {
+            return excerptSigningClient.sign(cephKey, excerptType);
+          } catch (Exception e) {
+            if (ExcerptSigningClient.isTransient(e)) {
+              throw new ExcerptRetryableException("Excerpt signing failed. Key: " + cephKey,
+                  cephKey, true, e);
+            }
+            throw new ExcerptProcessingException(FAILED,
+                "Excerpt signing failed. Key: " + cephKey, e);
+          }
+        });
 
     if (signExcerptResponse.isSigned()) {
-      return getSignedChecksum(cephKey);
+      return getChecksumOfSigned(cephKey, excerptType);
     } else {
       throw new ExcerptProcessingException(FAILED, "Excerpt signing failed. Key: " + cephKey);
     }
   }
 
+  private String getChecksumOfSigned(String cephKey, String excerptType) {
+    try {
+      return excerptMetrics.recordStage(CHECKSUM, excerptType, () -> getSignedChecksum(cephKey));
+    } catch (ExcerptRetryableException e) {
+      throw new ExcerptRetryableException(e.getDetails(), cephKey, true, true, e);
+    }
+  }
+
   private String getSignedChecksum(String cephKey) {
     Optional<CephObject> cephObject;
     try {
       cephObject = datafactoryCephService.get(bucket, cephKey);
     } catch (Exception e) {
-      throw new ExcerptProcessingException(FAILED,
-          "Failed retrieving ceph object by key: " + cephKey, e);
+      throw new ExcerptRetryableException("Failed retrieving ceph object by key: " + cephKey,
+          cephKey, true, e);
     }
 
-    var signedExcerptContentStream =
+    var signedExcerptContent =
         cephObject
             .orElseThrow(
                 () ->
                     new ExcerptProcessingException(
-                        FAILED, "Signed excerpt was not found in ceph. Key: " + cephKey))
-            .getContent();
+                        FAILED, "Signed excerpt was not found in ceph. Key: " + cephKey));
 
-    try {
+    try (var signedExcerptContentStream = signedExcerptContent.getContent()) {
       return DigestUtils.sha256Hex(signedExcerptContentStream);
     } catch (IOException e) {
-      throw new ExcerptProcessingException(FAILED, "Failed reading excerpt content from stream", e);
+      throw new ExcerptRetryableException("Failed reading excerpt content from stream", cephKey,
+          true, e);
     }
   }
 
-  private void updateExcerpt(UUID recordId, String cephKey, String checksum) {
-    log.info("Updating excerpt record. RecordId: {}. CephKey: {}. Checksum: {}",
-        recordId, cephKey, checksum);
-    var excerptRecord = getRecordById(recordId);
-    excerptRecord.setStatus(COMPLETED);
-    excerptRecord.setExcerptKey(cephKey);
-    excerptRecord.setChecksum(checksum);
-
-    excerptRecord.setUpdatedAt(LocalDateTime.now());
-    recordRepository.save(excerptRecord);
-    log.info("Excerpt record updated");
+  private int updateRecord(UUID recordId, ExcerptResult result) {
+    var updatedAt = LocalDateTime.now();
+    if (result.getStatus() == COMPLETED) {
+      return recordRepository.updateCompleted(
+          recordId, COMPLETED, result.getExcerptKey(), result.getChecksum(), updatedAt);
+    }
+    return recordRepository.updateStatus(
+        recordId, result.getStatus(), result.getStatusDetails(), updatedAt);
   }
 
-  private ExcerptRecord getRecordById(UUID id) {
-    return recordRepository.findById(id).
-        orElseThrow(() -> new ExcerptProcessingException(FAILED, "Record not found. Id: " + id));
+  private static final class RenderedExcerpt implements AutoCloseable {
+
+    private final long htmlSize;
+    private ExcerptContent pdf;
+    private final RenderMemoryBudget.Reservation reservation;
+
+    private RenderedExcerpt(long htmlSize, ExcerptContent pdf,
+        RenderMemoryBudget.Reservation reservation) {
+      this.htmlSize = htmlSize;
+      this.pdf = pdf;
+      this.reservation = reservation;
+    }
+
+    private ExcerptContent detachPdf() {
+      var detached = pdf;
+      pdf = null;
+      return detached;
+    }
+
+    @Override
+    public void close() {
+      try {
+        if (pdf != null) {
+          pdf.close();
+        }
+      } finally {
+        reservation.close();
+      }
+    }
   }
 }
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import com.epam.digital.data.platform.dso.api.dto.SignFileRequestDto;
+import com.epam.digital.data.platform.dso.api.dto.SignFileResponseDto;
+import com.epam.digital.data.platform.dso.client.DigitalSignatureFileRestClient;
+import com.epam.digital.data.platform.excerpt.worker.exception.SigningUnavailableException;
+import feign.FeignException;
+import feign.RetryableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ExcerptSigningClient {
+
+  static final String CALL_TIMER = "excerpt.signing.duration";
+  static final String QUEUE_WAIT_TIMER = "excerpt.signing.queue.wait";
+  static final String IN_FLIGHT_GAUGE = "excerpt.signing.in-flight";
+  static final String CIRCUIT_STATE_GAUGE = "excerpt.signing.circuit.state";
+  static final String REJECTED_COUNTER = "excerpt.signing.rejected";
+
+  static final String QUEUE_TIMEOUT = "queue-timeout";
+  static final String CIRCUIT_OPEN = "circuit-open";
+
+  private static final String UNKNOWN_TYPE = "unknown";
+
+  private final Logger log = LoggerFactory.getLogger(ExcerptSigningClient.class);
+
+  private final DigitalSignatureFileRestClient digitalSignatureFileRestClient;
+  private final MeterRegistry meterRegistry;
+  private final int maxInFlight;
+  private final Duration acquireTimeout;
+  private final boolean circuitBreakerEnabled;
+  private final int failureThreshold;
+  private final long openDurationNanos;
+  private final Semaphore permits;
+
+  private CircuitState circuitState = CircuitState.CLOSED;
+  private int consecutiveFailures;
+  private long openedAt;
+  private boolean trialInProgress;
+
+  public ExcerptSigningClient(
+      DigitalSignatureFileRestClient digitalSignatureFileRestClient,
+      MeterRegistry meterRegistry,
+      @Value("${excerpt.signing.max-in-flight}") int maxInFlight,
+      @Value("${excerpt.signing.acquire-timeout}") Duration acquireTimeout,
+      @Value("${excerpt.signing.circuit-breaker.enabled}") boolean circuitBreakerEnabled,
+      @Value("${excerpt.signing.circuit-breaker.failure-threshold}") int failureThreshold,
+      @Value("${excerpt.signing.circuit-breaker.open-duration}") Duration openDuration) {
+    this.digitalSignatureFileRestClient = digitalSignatureFileRestClient;
+    this.meterRegistry = meterRegistry;
+    this.maxInFlight = maxInFlight;
+    this.acquireTimeout = acquireTimeout;
+    this.circuitBreakerEnabled = circuitBreakerEnabled;
+    this.failureThreshold = Math.max(failureThreshold, 1);
+    this.openDurationNanos = openDuration.toNanos();
+    this.permits = new Semaphore(maxInFlight, true);
+
+    Gauge.builder(IN_FLIGHT_GAUGE, this, ExcerptSigningClient::getInFlight)
+        .description("Number of excerpt signing calls in progress")
+        .register(meterRegistry);
+    Gauge.builder(CIRCUIT_STATE_GAUGE, this, client -> client.getCircuitState().ordinal())
+        .description("State of the signing circuit breaker: 0 closed, 1 open, 2 half-open")
+        .register(meterRegistry);
+  }
+
+  public SignFileResponseDto sign(String cephKey, String excerptType) {
+    if (!tryEnterCircuit()) {
+      reject(CIRCUIT_OPEN, excerptType);
+      throw new SigningUnavailableException(
+          "Signing circuit is open, call rejected. Key: " + cephKey);
+    }
+    if (!acquire(excerptType)) {
+      releaseTrial();
+      reject(QUEUE_TIMEOUT, excerptType);
+      throw new SigningUnavailableException(
+          "Signing concurrency limit exceeded after " + acquireTimeout + ". Key: " + cephKey);
+    }
+
+    var sample = Timer.start(meterRegistry);
+    var outcome = ExcerptMetrics.FAILURE;
+    try {
+      var response = digitalSignatureFileRestClient.sign(new SignFileRequestDto(cephKey));
+      outcome = ExcerptMetrics.SUCCESS;
+      onSuccess();
+      return response;
+    } catch (RuntimeException e) {
+      onFailure(e);
+      throw e;
+    } finally {
+      permits.release();
+      sample.stop(Timer.builder(CALL_TIMER)
+          .description("Duration of a call to the digital signature service")
+          .tags("excerptType", excerptType(excerptType), "outcome", outcome)
+          .register(meterRegistry));
+    }
+  }
+
+  int getInFlight() {
+    return maxInFlight - permits.availablePermits();
+  }
+
+  synchronized CircuitState getCircuitState() {
+    if (circuitState == CircuitState.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+      return CircuitState.HALF_OPEN;
+    }
+    return circuitState;
+  }
+
+  static boolean isTransient(Exception e) {
+    if (e instanceof SigningUnavailableException || e instanceof RetryableException
+        || hasIoCause(e)) {
+      return true;
+    }
+    if (!(e instanceof FeignException)) {
+      return false;
+    }
+    var status = ((FeignException) e).status();
+    return status >= 500 || status == 408 || status == 429;
+  }
+
+  private static boolean hasIoCause(Throwable e) {
+    for (var cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof IOException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean acquire(String excerptType) {
+    var sample = Timer.start(meterRegistry);
+    try {
+      return permits.tryAcquire() || permits.tryAcquire(
+          acquireTimeout.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      sample.stop(Timer.builder(QUEUE_WAIT_TIMER)
+          .description("Time an excerpt waited for a free signing slot")
+          .tags("excerptType", excerptType(excerptType))
+          .register(meterRegistry));
+    }
+  }
+
+  private synchronized boolean tryEnterCircuit() {
+    if (!circuitBreakerEnabled || circuitState == CircuitState.CLOSED) {
+      return true;
+    }
+    if (getCircuitState() == CircuitState.HALF_OPEN && !trialInProgress) {
+      circuitState = CircuitState.HALF_OPEN;
+      trialInProgress = true;
+      return true;
+    }
+    return false;
+  }
+
+  private synchronized void releaseTrial() {
+    trialInProgress = false;
+  }
+
+  private synchronized void onSuccess() {
+    if (circuitState != CircuitState.CLOSED) {
+      log.info("Signing service recovered, closing circuit");
+    }
+    circuitState = CircuitState.CLOSED;
+    consecutiveFailures = 0;
+    trialInProgress = false;
+  }
+
+  private synchronized void onFailure(Exception e) {
+    trialInProgress = false;
+    if (!circuitBreakerEnabled || !isTransient(e)) {
+      return;
+    }
+    consecutiveFailures++;
+    if (circuitState == CircuitState.HALF_OPEN
+        || circuitState == CircuitState.CLOSED && consecutiveFailures >= failureThreshold) {
+      log.warn("Signing service failed {} times in a row, opening circuit for {} ms",
+          consecutiveFailures, TimeUnit.NANOSECONDS.toMillis(openDurationNanos));
+      circuitState = CircuitState.OPEN;
+      openedAt = System.nanoTime();
+    }
+  }
+
+  private void reject(String reason, String excerptType) {
+    Counter.builder(REJECTED_COUNTER)
+        .description("Number of signing calls rejected without reaching the signature service")
+        .tags("reason", reason, "excerptType", excerptType(excerptType))
+        .register(meterRegistry)
+        .increment();
+  }
+
+  private static String excerptType(String excerptType) {
+    return excerptType == null ? UNKNOWN_TYPE : excerptType;
+  }
+
+  enum CircuitState {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import com.epam.digital.data.platform.excerpt.dao.ExcerptTemplate;
+import com.epam.digital.data.platform.excerpt.worker.repository.ExcerptTemplateRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ExcerptTemplateCache {
+
+  static final String CACHE_NAME = "excerpt-template-rows";
+
+  private final Logger log = LoggerFactory.getLogger(ExcerptTemplateCache.class);
+
+  private final ExcerptTemplateRepository templateRepository;
+  private final CompiledTemplateCache compiledTemplateCache;
+  private final Cache<String, ExcerptTemplate> cache;
+
+  public ExcerptTemplateCache(
+      ExcerptTemplateRepository templateRepository,
+      CompiledTemplateCache compiledTemplateCache,
+      MeterRegistry meterRegistry,
+      @Value("${excerpt.template-cache.max-size}") long maxSize) {
+    this.templateRepository = templateRepository;
+    this.compiledTemplateCache = compiledTemplateCache;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+  }
+
+  public Optional<ExcerptTemplate> findByName(String templateName) {
+    if (templateName == null) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(cache.get(templateName,
+        name -> templateRepository.findFirstByTemplateName(name).orElse(null)));
+  }
+
+  public void evict(UUID templateId) {
+    log.info("Evicting excerpt template: {}", templateId);
+    cache.asMap().values()
+        .removeIf(excerptTemplate -> Objects.equals(excerptTemplate.getId(), templateId));
+    compiledTemplateCache.evict(templateId);
+  }
+
+  public void evict(String templateName) {
+    var excerptTemplate = cache.asMap().remove(templateName);
+    if (excerptTemplate != null) {
+      log.info("Evicting excerpt template: {}", templateName);
+      compiledTemplateCache.evict(excerptTemplate.getId());
+    }
+  }
+
+  public void evictAll() {
+    cache.invalidateAll();
+    compiledTemplateCache.evictAll();
+  }
+
+  public void evictChanged(Map<UUID, String> checksums) {
+    for (var excerptTemplate : cache.asMap().values()) {
+      var checksum = checksums.get(excerptTemplate.getId());
+      if (!Objects.equals(checksum, DigestUtils.md5Hex(excerptTemplate.getTemplate()))) {
+        evict(excerptTemplate.getId());
+      }
+    }
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import com.epam.digital.data.platform.excerpt.worker.config.PdfRendererProperties;
+import com.openhtmltopdf.extend.FSCacheEx;
+import com.openhtmltopdf.extend.FSCacheValue;
+import com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder.FSFontUseCase;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder.CacheStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+@Component
+public class FontRegistry {
+
+  private final Logger log = LoggerFactory.getLogger(FontRegistry.class);
+
+  private final List<LoadedFont> fonts;
+  private final FontMetricsCache fontMetricsCache = new FontMetricsCache();
+
+  public FontRegistry(
+      PdfRendererProperties pdfRendererProperties,
+      ResourceLoader resourceLoader,
+      MeterRegistry meterRegistry) {
+    this.fonts = pdfRendererProperties.getFonts().stream()
+        .map(font -> load(font, resourceLoader))
+        .collect(Collectors.toUnmodifiableList());
+
+    Gauge.builder("excerpt.pdf.fonts.size", fonts, List::size)
+        .description("Number of font faces loaded into the PDF font registry")
+        .register(meterRegistry);
+    Gauge.builder("excerpt.pdf.fonts.bytes", this, FontRegistry::getFontDataSize)
+        .description("Memory used by font files held in the PDF font registry")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    Gauge.builder("excerpt.pdf.font.metrics.size", fontMetricsCache, FontMetricsCache::size)
+        .description("Number of font metric entries shared between renders")
+        .register(meterRegistry);
+    Gauge.builder("excerpt.pdf.font.metrics.weight", fontMetricsCache, FontMetricsCache::weight)
+        .description("Total weight of font metric entries shared between renders")
+        .register(meterRegistry);
+  }
+
+  public PdfRendererBuilder registerFonts(PdfRendererBuilder builder) {
+    builder.useCacheStore(CacheStore.PDF_FONT_METRICS, fontMetricsCache);
+    for (var font : fonts) {
+      var useCases = font.descriptor.isFallback()
+          ? EnumSet.of(FSFontUseCase.DOCUMENT, FSFontUseCase.FALLBACK_PRE)
+          : EnumSet.of(FSFontUseCase.DOCUMENT);
+      builder.useFont(() -> new ByteArrayInputStream(font.data),
+          font.descriptor.getFamily(),
+          font.descriptor.getWeight(),
+          font.descriptor.getStyle(),
+          true,
+          useCases);
+    }
+    return builder;
+  }
+
+  long getFontDataSize() {
+    return fonts.stream().mapToLong(font -> font.data.length).sum();
+  }
+
+  private LoadedFont load(PdfRendererProperties.Font font, ResourceLoader resourceLoader) {
+    try (var stream = resourceLoader.getResource(font.getLocation()).getInputStream()) {
+      var data = stream.readAllBytes();
+      log.info("Loaded font {} from {}, {} bytes", font.getFamily(), font.getLocation(),
+          data.length);
+      return new LoadedFont(font, data);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to load font: " + font.getLocation(), e);
+    }
+  }
+
+  private static final class LoadedFont {
+
+    private final PdfRendererProperties.Font descriptor;
+    private final byte[] data;
+
+    private LoadedFont(PdfRendererProperties.Font descriptor, byte[] data) {
+      this.descriptor = descriptor;
+      this.data = data;
+    }
+  }
+
+  private static final class FontMetricsCache implements FSCacheEx<String, FSCacheValue> {
+
+    private final Map<String, FSCacheValue> values = new ConcurrentHashMap<>();
+    private final AtomicLong weight = new AtomicLong();
+
+    @Override
+    public void put(String key, FSCacheValue value) {
+      var previous = values.put(key, value);
+      weight.addAndGet(value.weight() - (previous == null ? 0 : previous.weight()));
+    }
+
+    @Override
+    public FSCacheValue get(String key, Callable<? extends FSCacheValue> loader) {
+      var value = values.get(key);
+      if (value != null) {
+        return value;
+      }
+      try {
+        value = loader.call();
+      } catch (Exception e) {
+        return null;
+      }
+      if (value != null) {
+        put(key, value);
+      }
+      return value;
+    }
+
+    @Override
+    public FSCacheValue get(String key) {
+      return values.get(key);
+    }
+
+    int size() {
+      return values.size();
+    }
+
+    long weight() {
+      return weight.get();
+    }
+  }
+}
@@ -20,8 +20,6 @@ import static com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStat
 
 import com.epam.digital.data.platform.excerpt.dao.ExcerptTemplate;
 import com.epam.digital.data.platform.excerpt.worker.exception.ExcerptProcessingException;
-import freemarker.template.Configuration;
-import freemarker.template.Template;
 import freemarker.template.TemplateException;
 import java.io.IOException;
 import java.io.StringWriter;
@@ -33,17 +31,16 @@ import org.springframework.stereotype.Component;
 public class FreemarkerHtmlRenderer implements HtmlRenderer {
 
   private final Logger log = LoggerFactory.getLogger(FreemarkerHtmlRenderer.class);
-  private final Configuration freemarker;
+  private final CompiledTemplateCache templateCache;
 
-  public FreemarkerHtmlRenderer(Configuration freemarker) {
-    this.freemarker = freemarker;
+  public FreemarkerHtmlRenderer(CompiledTemplateCache templateCache) {
+    this.templateCache = templateCache;
   }
 
   @Override
   public String render(ExcerptTemplate excerptTemplate, Object jsonData) {
     try (var htmlReport = new StringWriter()) {
-      var template = new Template(excerptTemplate.getTemplateName(),
-          excerptTemplate.getTemplate(), freemarker);
+      var template = templateCache.get(excerptTemplate);
       template.process(jsonData, htmlReport);
       return htmlReport.toString();
     } catch (TemplateException e) {
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+import freemarker.template.AdapterTemplateModel;
+import freemarker.template.DefaultObjectWrapper;
+import freemarker.template.ObjectWrapper;
+import freemarker.template.SimpleNumber;
+import freemarker.template.SimpleScalar;
+import freemarker.template.TemplateBooleanModel;
+import freemarker.template.TemplateCollectionModel;
+import freemarker.template.TemplateHashModelEx2;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateModelIterator;
+import freemarker.template.TemplateSequenceModel;
+import freemarker.template.Version;
+import freemarker.template.WrappingTemplateModel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public class JsonNodeObjectWrapper extends DefaultObjectWrapper {
+
+  public JsonNodeObjectWrapper(Version incompatibleImprovements) {
+    super(incompatibleImprovements);
+    setUseAdaptersForContainers(true);
+  }
+
+  @Override
+  protected TemplateModel handleUnknownType(Object obj) throws TemplateModelException {
+    if (obj instanceof JsonNode) {
+      return wrapNode((JsonNode) obj);
+    }
+    return super.handleUnknownType(obj);
+  }
+
+  private TemplateModel wrapNode(JsonNode node) throws TemplateModelException {
+    switch (node.getNodeType()) {
+      case OBJECT:
+        return new ObjectNodeModel(node, this);
+      case ARRAY:
+        return new ArrayNodeModel(node, this);
+      case STRING:
+      case BINARY:
+        return new SimpleScalar(node.asText());
+      case NUMBER:
+        return new SimpleNumber(node.numberValue());
+      case BOOLEAN:
+        return node.booleanValue() ? TemplateBooleanModel.TRUE : TemplateBooleanModel.FALSE;
+      case POJO:
+        return wrap(((POJONode) node).getPojo());
+      default:
+        return null;
+    }
+  }
+
+  private static final class ObjectNodeModel extends WrappingTemplateModel
+      implements TemplateHashModelEx2, AdapterTemplateModel {
+
+    private final JsonNode node;
+
+    private ObjectNodeModel(JsonNode node, ObjectWrapper objectWrapper) {
+      super(objectWrapper);
+      this.node = node;
+    }
+
+    @Override
+    public TemplateModel get(String key) throws TemplateModelException {
+      var value = node.get(key);
+      return value == null ? null : wrap(value);
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return node.size() == 0;
+    }
+
+    @Override
+    public int size() {
+      return node.size();
+    }
+
+    @Override
+    public TemplateCollectionModel keys() {
+      return new IteratorCollectionModel<>(node::fieldNames, this::wrapKey);
+    }
+
+    @Override
+    public TemplateCollectionModel values() {
+      return new IteratorCollectionModel<>(node::elements, this::wrap);
+    }
+
+    @Override
+    public KeyValuePairIterator keyValuePairIterator() {
+      var fields = node.fields();
+      return new KeyValuePairIterator() {
+        @Override
+        public boolean hasNext() {
+          return fields.hasNext();
+        }
+
+        @Override
+        public KeyValuePair next() throws TemplateModelException {
+          if (!fields.hasNext()) {
+            throw new TemplateModelException("The collection has no more items.");
+          }
+          Map.Entry<String, JsonNode> field = fields.next();
+          var key = wrapKey(field.getKey());
+          var value = wrap(field.getValue());
+          return new KeyValuePair() {
+            @Override
+            public TemplateModel getKey() {
+              return key;
+            }
+
+            @Override
+            public TemplateModel getValue() {
+              return value;
+            }
+          };
+        }
+      };
+    }
+
+    @Override
+    public Object getAdaptedObject(Class<?> hint) {
+      return node;
+    }
+
+    private TemplateModel wrapKey(String key) {
+      return new SimpleScalar(key);
+    }
+  }
+
+  private static final class ArrayNodeModel extends WrappingTemplateModel
+      implements TemplateSequenceModel, TemplateCollectionModel, AdapterTemplateModel {
+
+    private final JsonNode node;
+
+    private ArrayNodeModel(JsonNode node, ObjectWrapper objectWrapper) {
+      super(objectWrapper);
+      this.node = node;
+    }
+
+    @Override
+    public TemplateModel get(int index) throws TemplateModelException {
+      var value = node.get(index);
+      return value == null ? null : wrap(value);
+    }
+
+    @Override
+    public int size() {
+      return node.size();
+    }
+
+    @Override
+    public TemplateModelIterator iterator() {
+      return new IteratorCollectionModel<>(node::elements, this::wrap).iterator();
+    }
+
+    @Override
+    public Object getAdaptedObject(Class<?> hint) {
+      return node;
+    }
+  }
+
+  private static final class IteratorCollectionModel<T> implements TemplateCollectionModel {
+
+    private final Supplier<Iterator<T>> iterator;
+    private final ModelFactory<T> modelFactory;
+
+    private IteratorCollectionModel(Supplier<Iterator<T>> iterator,
+        ModelFactory<T> modelFactory) {
+      this.iterator = iterator;
+      this.modelFactory = modelFactory;
+    }
+
+    @Override
+    public TemplateModelIterator iterator() {
+      Iterator<T> items = iterator.get();
+      return new TemplateModelIterator() {
+        @Override
+        public TemplateModel next() throws TemplateModelException {
+          if (!items.hasNext()) {
+            throw new TemplateModelException("The collection has no more items.");
+          }
+          return modelFactory.create(items.next());
+        }
+
+        @Override
+        public boolean hasNext() {
+          return items.hasNext();
+        }
+      };
+    }
+  }
+
+  @FunctionalInterface
+  private interface ModelFactory<T> {
+
+    TemplateModel create(T item) throws TemplateModelException;
+  }
+}
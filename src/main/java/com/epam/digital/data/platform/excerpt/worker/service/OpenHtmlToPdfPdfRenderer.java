@@ -18,9 +18,18 @@ package com.epam.digital.data.platform.excerpt.worker.service;
 
 import static com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus.FAILED;
 
+import com.epam.digital.data.platform.excerpt.worker.config.PdfRendererProperties;
 import com.epam.digital.data.platform.excerpt.worker.exception.ExcerptProcessingException;
 import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
-import java.io.ByteArrayOutputStream;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -30,20 +39,87 @@ public class OpenHtmlToPdfPdfRenderer implements PdfRenderer {
 
   private final Logger log = LoggerFactory.getLogger(OpenHtmlToPdfPdfRenderer.class);
 
-  @Override
-  public byte[] render(String html) {
-    try (var result = new ByteArrayOutputStream()) {
-      var font = this.getClass().getResourceAsStream("/fonts/Roboto.ttf");
+  private final FontRegistry fontRegistry;
+  private final long largeDocumentThreshold;
+  private final long scratchMainMemory;
+  private final DistributionSummary scratchSpill;
+
+  public OpenHtmlToPdfPdfRenderer(
+      FontRegistry fontRegistry,
+      PdfRendererProperties pdfRendererProperties,
+      MeterRegistry meterRegistry) {
+    this.fontRegistry = fontRegistry;
+    var largeDocument = pdfRendererProperties.getLargeDocument();
+    this.largeDocumentThreshold = largeDocument.getHtmlThreshold().toBytes();
+    this.scratchMainMemory = largeDocument.getMainMemory().toBytes();
+    this.scratchSpill = DistributionSummary.builder("excerpt.pdf.scratch.spill")
+        .description("Bytes of PDFBox scratch memory spilled to disk by large documents")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
 
-      new PdfRendererBuilder().toStream(result)
-          .useFont(() -> font, "Roboto")
+  @Override
+  public void render(String html, OutputStream outputStream) {
+    try {
+      if (isLargeDocument(html)) {
+        renderLargeDocument(html, outputStream);
+        return;
+      }
+      fontRegistry.registerFonts(new PdfRendererBuilder())
+          .toStream(outputStream)
           .withHtmlContent(html, "/")
           .run();
-
-      return result.toByteArray();
     } catch (Exception e) {
       log.error("Html to pdf conversion exception", e);
       throw new ExcerptProcessingException(FAILED, "HTML to PDF conversion fails");
     }
   }
+
+  boolean isLargeDocument(String html) {
+    if (html.length() >= largeDocumentThreshold) {
+      return true;
+    }
+    if ((long) html.length() * 3 < largeDocumentThreshold) {
+      return false;
+    }
+    return RenderMemoryBudget.utf8Length(html) >= largeDocumentThreshold;
+  }
+
+  private void renderLargeDocument(String html, OutputStream outputStream) throws IOException {
+    log.info("Rendering large document with disk-backed scratch memory. HTML size: {} chars",
+        html.length());
+    var scratchDir = Files.createTempDirectory("excerpt-pdfbox-");
+    try {
+      var memoryUsage = MemoryUsageSetting.setupMixed(scratchMainMemory)
+          .setTempDir(scratchDir.toFile());
+      try (var document = new PDDocument(memoryUsage);
+          var renderer = fontRegistry.registerFonts(new PdfRendererBuilder())
+              .usePDDocument(document)
+              .withHtmlContent(html, "/")
+              .buildPdfRenderer()) {
+        renderer.layout();
+        renderer.createPDFWithoutClosing();
+        var spilled = directorySize(scratchDir);
+        scratchSpill.record(spilled);
+        log.info("Large document rendered, scratch spilled to disk: {} bytes", spilled);
+        document.save(outputStream);
+      }
+    } finally {
+      deleteDirectory(scratchDir);
+    }
+  }
+
+  private long directorySize(Path directory) throws IOException {
+    try (var files = Files.list(directory)) {
+      return files.mapToLong(file -> file.toFile().length()).sum();
+    }
+  }
+
+  private void deleteDirectory(Path directory) {
+    try (var files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    } catch (IOException e) {
+      log.warn("Failed to remove PDF scratch directory: {}", directory, e);
+    }
+  }
 }
@@ -16,7 +16,9 @@
 
 package com.epam.digital.data.platform.excerpt.worker.service;
 
+import java.io.OutputStream;
+
 public interface PdfRenderer {
 
-  byte[] render(String html);
+  void render(String html, OutputStream outputStream);
 }
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Component
+public class RenderMemoryBudget {
+
+  static final String BUDGET_GAUGE = "excerpt.render.memory.budget";
+  static final String RESERVED_GAUGE = "excerpt.render.memory.reserved";
+  static final String WAIT_TIMER = "excerpt.render.memory.wait";
+
+  private static final long PERMIT_SIZE = 1024;
+  private static final long ELEMENT_OVERHEAD = 16;
+  private static final double HISTORY_WEIGHT = 0.2;
+  private static final String UNKNOWN_TYPE = "unknown";
+
+  private final Logger log = LoggerFactory.getLogger(RenderMemoryBudget.class);
+
+  private final MeterRegistry meterRegistry;
+  private final boolean enabled;
+  private final long budget;
+  private final long minReservation;
+  private final double overheadFactor;
+  private final Semaphore permits;
+  private final ConcurrentMap<String, Double> costRatios = new ConcurrentHashMap<>();
+
+  public RenderMemoryBudget(
+      MeterRegistry meterRegistry,
+      @Value("${excerpt.render.memory-budget.enabled}") boolean enabled,
+      @Value("${excerpt.render.memory-budget.max-size}") DataSize maxSize,
+      @Value("${excerpt.render.memory-budget.heap-fraction}") double heapFraction,
+      @Value("${excerpt.render.memory-budget.min-reservation}") DataSize minReservation,
+      @Value("${excerpt.render.memory-budget.overhead-factor}") double overheadFactor) {
+    this.meterRegistry = meterRegistry;
+    this.enabled = enabled;
+    this.budget = maxSize.toBytes() > 0
+        ? maxSize.toBytes()
+        : (long) (Runtime.getRuntime().maxMemory() * heapFraction);
+    this.minReservation = Math.min(minReservation.toBytes(), budget);
+    this.overheadFactor = overheadFactor;
+    this.permits = new Semaphore(toPermits(budget), true);
+
+    Gauge.builder(BUDGET_GAUGE, this, RenderMemoryBudget::getBudget)
+        .description("Heap budget shared by concurrent excerpt renders")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    Gauge.builder(RESERVED_GAUGE, this, RenderMemoryBudget::getReserved)
+        .description("Heap reserved by excerpt renders in progress")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
+
+  public Reservation reserve(String excerptType, Object inputData) {
+    if (!enabled) {
+      return new Reservation(excerptType, 0, 0);
+    }
+    var inputSize = estimateInputSize(inputData);
+    var cost = estimateCost(excerptType, inputSize);
+    var requested = toPermits(cost);
+
+    var sample = Timer.start(meterRegistry);
+    if (!permits.tryAcquire(requested)) {
+      log.info("Render memory budget exhausted, waiting for {} bytes. Reserved: {} of {}",
+          cost, getReserved(), budget);
+      permits.acquireUninterruptibly(requested);
+    }
+    sample.stop(Timer.builder(WAIT_TIMER)
+        .description("Time an excerpt waited for render memory budget")
+        .tags("excerptType", excerptType(excerptType))
+        .register(meterRegistry));
+    return new Reservation(excerptType, inputSize, requested);
+  }
+
+  long estimateCost(String excerptType, long inputSize) {
+    var ratio = costRatios.getOrDefault(excerptType(excerptType), overheadFactor);
+    var cost = (long) (inputSize * ratio);
+    return Math.min(Math.max(cost, minReservation), budget);
+  }
+
+  long getBudget() {
+    return budget;
+  }
+
+  long getReserved() {
+    return (toPermits(budget) - (long) permits.availablePermits()) * PERMIT_SIZE;
+  }
+
+  private void recordUsage(String excerptType, long inputSize, long usedBytes) {
+    var ratio = (double) usedBytes / Math.max(inputSize, 1);
+    costRatios.merge(excerptType(excerptType), ratio,
+        (previous, current) -> previous + HISTORY_WEIGHT * (current - previous));
+  }
+
+  static long estimateInputSize(Object inputData) {
+    var size = 0L;
+    var pending = new ArrayDeque<Object>();
+    if (inputData != null) {
+      pending.push(inputData);
+    }
+    while (!pending.isEmpty()) {
+      var item = pending.pop();
+      size += ELEMENT_OVERHEAD;
+      if (item instanceof Map) {
+        for (var entry : ((Map<?, ?>) item).entrySet()) {
+          pushIfPresent(pending, entry.getKey());
+          pushIfPresent(pending, entry.getValue());
+        }
+      } else if (item instanceof Collection) {
+        ((Collection<?>) item).forEach(element -> pushIfPresent(pending, element));
+      } else if (item instanceof JsonNode && ((JsonNode) item).isContainerNode()) {
+        var node = (JsonNode) item;
+        node.fieldNames().forEachRemaining(pending::push);
+        node.elements().forEachRemaining(pending::push);
+      } else if (item instanceof JsonNode) {
+        size += 2L * ((JsonNode) item).asText().length();
+      } else if (item instanceof CharSequence) {
+        size += 2L * ((CharSequence) item).length();
+      }
+    }
+    return size;
+  }
+
+  static long utf8Length(CharSequence text) {
+    long length = 0;
+    for (var i = 0; i < text.length(); i++) {
+      var c = text.charAt(i);
+      if (c < 0x80) {
+        length++;
+      } else if (c < 0x800) {
+        length += 2;
+      } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+          && Character.isLowSurrogate(text.charAt(i + 1))) {
+        length += 4;
+        i++;
+      } else {
+        length += 3;
+      }
+    }
+    return length;
+  }
+
+  private static void pushIfPresent(ArrayDeque<Object> pending, Object item) {
+    if (item != null) {
+      pending.push(item);
+    }
+  }
+
+  private static int toPermits(long bytes) {
+    return (int) Math.min(Integer.MAX_VALUE, (bytes + PERMIT_SIZE - 1) / PERMIT_SIZE);
+  }
+
+  private static String excerptType(String excerptType) {
+    return excerptType == null ? UNKNOWN_TYPE : excerptType;
+  }
+
+  public final class Reservation implements AutoCloseable {
+
+    private final String excerptType;
+    private final long inputSize;
+    private int permitCount;
+
+    private Reservation(String excerptType, long inputSize, int permitCount) {
+      this.excerptType = excerptType;
+      this.inputSize = inputSize;
+      this.permitCount = permitCount;
+    }
+
+    public void recordUsage(long htmlSize, long pdfHeapSize) {
+      if (enabled) {
+        RenderMemoryBudget.this.recordUsage(excerptType, inputSize,
+            (long) ((2 * htmlSize + pdfHeapSize) * overheadFactor));
+      }
+    }
+
+    public synchronized void shrinkTo(long retainedBytes) {
+      var retained = Math.min(toPermits(retainedBytes), permitCount);
+      if (retained < permitCount) {
+        permits.release(permitCount - retained);
+        permitCount = retained;
+      }
+    }
+
+    @Override
+    public synchronized void close() {
+      if (permitCount > 0) {
+        permits.release(permitCount);
+        permitCount = 0;
+      }
+    }
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import com.epam.digital.data.platform.excerpt.dao.ExcerptTemplate;
+import com.epam.digital.data.platform.excerpt.worker.repository.ExcerptTemplateRepository;
+import freemarker.template.TemplateExceptionHandler;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+@Component
+public class RendererWarmUp implements SmartLifecycle {
+
+  static final int PHASE = AbstractMessageListenerContainer.DEFAULT_PHASE - 100;
+
+  static final String WARM_UP_HTML =
+      "<html><head><style>body { font-family: Roboto; }</style></head>"
+          + "<body><h1>Warm-up</h1><table><tr><td>warm</td><td>up</td></tr></table></body></html>";
+
+  private final Logger log = LoggerFactory.getLogger(RendererWarmUp.class);
+
+  private final ExcerptTemplateRepository templateRepository;
+  private final CompiledTemplateCache templateCache;
+  private final PdfRenderer pdfRenderer;
+  private final Clock clock;
+  private final boolean enabled;
+  private final int iterations;
+  private final Duration timeout;
+  private volatile boolean running;
+
+  public RendererWarmUp(
+      ExcerptTemplateRepository templateRepository,
+      CompiledTemplateCache templateCache,
+      PdfRenderer pdfRenderer,
+      Clock clock,
+      @Value("${excerpt.warm-up.enabled}") boolean enabled,
+      @Value("${excerpt.warm-up.iterations}") int iterations,
+      @Value("${excerpt.warm-up.timeout}") Duration timeout) {
+    this.templateRepository = templateRepository;
+    this.templateCache = templateCache;
+    this.pdfRenderer = pdfRenderer;
+    this.clock = clock;
+    this.enabled = enabled;
+    this.iterations = iterations;
+    this.timeout = timeout;
+  }
+
+  @Override
+  public void start() {
+    running = true;
+    if (enabled) {
+      warmUp();
+    }
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  @Override
+  public int getPhase() {
+    return PHASE;
+  }
+
+  private void warmUp() {
+    var deadline = clock.instant().plus(timeout);
+    log.info("Warming up excerpt renderers, time budget: {}", timeout);
+
+    var renders = 0;
+    try {
+      var templates = templateRepository.findAll();
+      for (var template : templates) {
+        var html = renderHtml(template);
+        for (var i = 0; i < iterations && isBefore(deadline); i++) {
+          renderPdf(html, template.getTemplateName());
+          renders++;
+        }
+      }
+      for (var i = 0; renders < iterations && isBefore(deadline); i++) {
+        renderPdf(WARM_UP_HTML, "warm-up");
+        renders++;
+      }
+    } catch (RuntimeException e) {
+      log.warn("Excerpt renderers warm-up interrupted", e);
+    }
+
+    if (isBefore(deadline)) {
+      log.info("Excerpt renderers warmed up, {} renders", renders);
+    } else {
+      log.warn("Excerpt renderers warm-up time budget exceeded after {} renders", renders);
+    }
+  }
+
+  private String renderHtml(ExcerptTemplate excerptTemplate) {
+    try (var html = new StringWriter()) {
+      var template = templateCache.get(excerptTemplate);
+      var environment = template.createProcessingEnvironment(Map.of(), html);
+      environment.setTemplateExceptionHandler(TemplateExceptionHandler.IGNORE_HANDLER);
+      environment.process();
+      return html.toString();
+    } catch (Exception e) {
+      log.debug("Template {} can not be rendered without data",
+          excerptTemplate.getTemplateName(), e);
+      return WARM_UP_HTML;
+    }
+  }
+
+  private void renderPdf(String html, String templateName) {
+    try {
+      pdfRenderer.render(html, OutputStream.nullOutputStream());
+    } catch (RuntimeException e) {
+      log.debug("Warm-up render of {} failed", templateName, e);
+    }
+  }
+
+  private boolean isBefore(Instant deadline) {
+    return clock.instant().isBefore(deadline);
+  }
+}
@@ -29,9 +29,13 @@ import org.springframework.context.annotation.Import;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.messaging.support.MessageBuilder;
 
+import java.util.List;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -50,6 +54,8 @@ class AuditKafkaEventsAspectTest {
 
   @MockBean
   private KafkaEventsFacade kafkaEventsFacade;
+  @MockBean
+  private QueuedAuditSender queuedAuditSender;
 
   @Test
   void expectAuditAspectBeforeAndAfterListener() {
@@ -57,8 +63,51 @@ class AuditKafkaEventsAspectTest {
     excerptEventDto.setRecordId(UUID.randomUUID());
     mockListener.generate(new Request<>(excerptEventDto));
 
+    verify(kafkaEventsFacade).createRequestContext();
+    verify(kafkaEventsFacade, times(2))
+            .sendKafkaAudit(any(), any(), any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void expectAuditAspectBeforeAndAfterEachRecordOfBatchListener() {
+    var first = new ExcerptEventDto();
+    first.setRecordId(UUID.randomUUID());
+    var second = new ExcerptEventDto();
+    second.setRecordId(UUID.randomUUID());
+    mockListener.generateBatch(List.of(new Request<>(first), new Request<>(second)));
+
+    verify(kafkaEventsFacade, times(2))
+            .sendKafkaAudit(any(), any(), any(), any(), eq(KafkaAuditProcessor.BEFORE), any(), any());
     verify(kafkaEventsFacade, times(2))
-            .sendKafkaAudit(any(), any(), any(), any(), any(), any());
+            .sendKafkaAudit(any(), any(), any(), any(), eq(KafkaAuditProcessor.AFTER), any(), any());
+  }
+
+  @Test
+  void expectSingleAfterEventWithDurationWhenStepsCollapsed() {
+    when(queuedAuditSender.isCollapseSteps()).thenReturn(true);
+    var excerptEventDto = new ExcerptEventDto();
+    excerptEventDto.setRecordId(UUID.randomUUID());
+    mockListener.generate(new Request<>(excerptEventDto));
+
+    verify(kafkaEventsFacade, never())
+            .sendKafkaAudit(any(), any(), any(), any(), eq(KafkaAuditProcessor.BEFORE), any(), any());
+    verify(kafkaEventsFacade)
+            .sendKafkaAudit(any(), any(), any(), any(), eq(KafkaAuditProcessor.AFTER), any(),
+                startsWith(KafkaAuditProcessor.DURATION_RESULT_PREFIX));
+  }
+
+  @Test
+  void expectEventsQueuedWhenAsyncAuditEnabled() {
+    when(queuedAuditSender.isEnabled()).thenReturn(true);
+    var excerptEventDto = new ExcerptEventDto();
+    excerptEventDto.setRecordId(UUID.randomUUID());
+    mockListener.generate(new Request<>(excerptEventDto));
+
+    verify(kafkaEventsFacade, times(2))
+            .createKafkaAudit(any(), any(), any(), any(), any(), any(), any());
+    verify(queuedAuditSender, times(2)).send(any());
+    verify(kafkaEventsFacade, never())
+            .sendKafkaAudit(any(), any(), any(), any(), any(), any(), any());
   }
 
   @TestComponent
@@ -67,5 +116,9 @@ class AuditKafkaEventsAspectTest {
     @AuditableListener(action = "GENERATE EXCERPT")
     @KafkaListener
     void generate(Request<ExcerptEventDto> request) {}
+
+    @AuditableListener(action = "GENERATE EXCERPT")
+    @KafkaListener
+    void generateBatch(List<Request<ExcerptEventDto>> requests) {}
   }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.epam.digital.data.platform.starter.security.dto.JwtClaimsDto;
+import com.epam.digital.data.platform.starter.security.jwt.TokenParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class AuditUserInfoCacheTest {
+
+  private static final String TOKEN = "token";
+
+  @Mock
+  private TokenParser tokenParser;
+
+  private AuditUserInfoCache auditUserInfoCache;
+
+  @BeforeEach
+  void beforeEach() {
+    auditUserInfoCache = new AuditUserInfoCache(tokenParser, new SimpleMeterRegistry(), 10);
+  }
+
+  @Test
+  void shouldParseTokenOnce() {
+    var claims = new JwtClaimsDto();
+    claims.setFullName("John Doe");
+    claims.setSubject("subject");
+    claims.setDrfo("1010101014");
+    when(tokenParser.parseClaims(TOKEN)).thenReturn(claims);
+
+    var first = auditUserInfoCache.getUserInfo(TOKEN);
+    var second = auditUserInfoCache.getUserInfo(TOKEN);
+
+    assertThat(second).isSameAs(first);
+    assertThat(first.getUserName()).isEqualTo("John Doe");
+    assertThat(first.getUserKeycloakId()).isEqualTo("subject");
+    assertThat(first.getUserDrfo()).isEqualTo("1010101014");
+    verify(tokenParser, times(1)).parseClaims(TOKEN);
+  }
+
+  @Test
+  void shouldReturnNullWithoutToken() {
+    assertThat(auditUserInfoCache.getUserInfo(null)).isNull();
+    verifyNoInteractions(tokenParser);
+  }
+}
@@ -23,6 +23,7 @@ import com.epam.digital.data.platform.starter.audit.model.EventType;
 import com.epam.digital.data.platform.starter.audit.service.AuditService;
 import com.epam.digital.data.platform.starter.security.jwt.TokenParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -89,7 +90,9 @@ class KafkaEventsFacadeTest {
   void beforeEach() {
     kafkaEventsFacade =
         new KafkaEventsFacade(
-            auditService, APP_NAME, clock, traceProvider, tokenParser, auditSourceInfoProvider);
+            auditService, APP_NAME, clock, traceProvider,
+            new AuditUserInfoCache(tokenParser, new SimpleMeterRegistry(), 10),
+            auditSourceInfoProvider);
 
     when(traceProvider.getRequestId()).thenReturn(REQUEST_ID);
 
@@ -104,7 +107,7 @@ class KafkaEventsFacadeTest {
     when(auditService.createContext(ACTION, STEP, null, EXCERPT_ID, null, RESULT))
         .thenReturn(context);
 
-    kafkaEventsFacade.sendKafkaAudit(
+    kafkaEventsFacade.sendKafkaAudit(kafkaEventsFacade.createRequestContext(),
         EventType.USER_ACTION, METHOD_NAME, ACTION, STEP, EXCERPT_ID, RESULT);
 
     ArgumentCaptor<AuditEvent> auditEventCaptor = ArgumentCaptor.forClass(AuditEvent.class);
@@ -133,7 +136,7 @@ class KafkaEventsFacadeTest {
         .thenReturn(context);
     when(traceProvider.getAccessToken()).thenReturn(accessToken);
 
-    kafkaEventsFacade.sendKafkaAudit(
+    kafkaEventsFacade.sendKafkaAudit(kafkaEventsFacade.createRequestContext(),
         EventType.USER_ACTION, METHOD_NAME, ACTION, STEP, EXCERPT_ID, RESULT);
 
     ArgumentCaptor<AuditEvent> auditEventCaptor = ArgumentCaptor.forClass(AuditEvent.class);
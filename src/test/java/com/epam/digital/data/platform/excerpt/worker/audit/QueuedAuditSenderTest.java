@@ -0,0 +1,134 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.epam.digital.data.platform.starter.audit.model.AuditEvent;
+import com.epam.digital.data.platform.starter.audit.service.AuditService;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class QueuedAuditSenderTest {
+
+  @Mock
+  private AuditService auditService;
+
+  @Test
+  void shouldSendSynchronouslyWhenDisabled() throws InterruptedException {
+    var sender = createSender(false, 10);
+    sender.start();
+    var event = mock(AuditEvent.class);
+
+    sender.send(event);
+
+    verify(auditService).sendAudit(event);
+    assertThat(sender.getQueueSize()).isZero();
+    sender.stop();
+  }
+
+  @Test
+  void shouldFlushQueuedEventsOnStop() throws InterruptedException {
+    var sender = createSender(true, 10);
+    var release = new CountDownLatch(1);
+    var first = mock(AuditEvent.class);
+    doAnswer(invocation -> {
+      release.await();
+      return null;
+    }).when(auditService).sendAudit(first);
+    sender.start();
+
+    sender.send(first);
+    for (int i = 0; i < 5; i++) {
+      sender.send(mock(AuditEvent.class));
+    }
+    release.countDown();
+    sender.stop();
+
+    verify(auditService, times(6)).sendAudit(any());
+    assertThat(sender.getQueueSize()).isZero();
+  }
+
+  @Test
+  void shouldSendRemainingEventsOnStopWhenSenderIsStuck() throws InterruptedException {
+    var sender = new QueuedAuditSender(auditService, true, 10, Duration.ofMillis(50), false);
+    var release = new CountDownLatch(1);
+    var stuck = mock(AuditEvent.class);
+    var started = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      started.countDown();
+      release.await();
+      return null;
+    }).when(auditService).sendAudit(stuck);
+    sender.start();
+
+    sender.send(stuck);
+    started.await();
+    for (int i = 0; i < 5; i++) {
+      sender.send(mock(AuditEvent.class));
+    }
+    sender.stop();
+
+    verify(auditService, times(6)).sendAudit(any());
+    assertThat(sender.getQueueSize()).isZero();
+    release.countDown();
+  }
+
+  @Test
+  void shouldContinueSendingAfterFailure() throws InterruptedException {
+    var sender = createSender(true, 10);
+    var failing = mock(AuditEvent.class);
+    var next = mock(AuditEvent.class);
+    doThrow(new IllegalStateException("kafka is down")).when(auditService).sendAudit(failing);
+    sender.start();
+
+    sender.send(failing);
+    sender.send(next);
+    sender.stop();
+
+    verify(auditService).sendAudit(next);
+  }
+
+  @Test
+  void shouldSendSynchronouslyAfterStop() throws InterruptedException {
+    var sender = createSender(true, 10);
+    sender.start();
+    sender.stop();
+    var event = mock(AuditEvent.class);
+
+    sender.send(event);
+
+    verify(auditService).sendAudit(event);
+    assertThat(sender.getQueueSize()).isZero();
+  }
+
+  private QueuedAuditSender createSender(boolean enabled, int queueCapacity) {
+    return new QueuedAuditSender(auditService, enabled, queueCapacity, Duration.ofSeconds(5),
+        false);
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+class ExecutorConfigTest {
+
+  private final ExecutorConfig executorConfig = new ExecutorConfig();
+
+  @Test
+  void shouldUseVirtualThreadsOnlyWhenRuntimeSupportsThem() {
+    var supported = Runtime.version().feature() >= 21;
+
+    assertThat(ExecutorConfig.virtualThreadFactory("test-").isPresent()).isEqualTo(supported);
+  }
+
+  @Test
+  void shouldNameIoThreads() throws Exception {
+    var executor = executorConfig.ioTaskExecutor(2, true);
+    if (executor instanceof InitializingBean) {
+      ((InitializingBean) executor).afterPropertiesSet();
+    }
+    try {
+      var thread = CompletableFuture.supplyAsync(Thread::currentThread, executor)
+          .get(5, TimeUnit.SECONDS);
+
+      assertThat(thread.getName()).startsWith("excerpt-io-");
+      assertThat(executor instanceof ThreadPoolTaskExecutor)
+          .isEqualTo(Runtime.version().feature() < 21);
+    } finally {
+      ((DisposableBean) executor).destroy();
+    }
+  }
+}
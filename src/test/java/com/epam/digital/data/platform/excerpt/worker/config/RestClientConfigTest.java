@@ -0,0 +1,78 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import okhttp3.Request;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RestClientConfigTest {
+
+  private final RestClientConfig restClientConfig = new RestClientConfig();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private HttpServer server;
+
+  @BeforeEach
+  void init() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/api/sign", exchange -> {
+      var body = "{\"isSigned\":true}".getBytes();
+      exchange.sendResponseHeaders(200, body.length);
+      exchange.getResponseBody().write(body);
+      exchange.close();
+    });
+    server.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.stop(0);
+  }
+
+  @Test
+  void shouldReuseConnectionAcrossSigningRequests() throws IOException {
+    var connectionPool = restClientConfig.signingConnectionPool(4, Duration.ofMinutes(1));
+    restClientConfig.signingConnectionPoolMetrics(connectionPool, 4).bindTo(meterRegistry);
+    var httpClient = restClientConfig.signingHttpClient(connectionPool, meterRegistry,
+        Duration.ofSeconds(5), Duration.ofSeconds(5), true);
+    var url = "http://localhost:" + server.getAddress().getPort() + "/api/sign";
+
+    for (var i = 0; i < 3; i++) {
+      try (var response = httpClient.newCall(new Request.Builder().url(url).build()).execute()) {
+        assertThat(response.code()).isEqualTo(200);
+        assertThat(response.body().string()).contains("isSigned");
+      }
+    }
+
+    assertThat(meterRegistry.get(SigningHttpEventListener.REQUESTS_TIMER)
+        .tag("uri", "/api/sign").timer().count()).isEqualTo(3);
+    assertThat(meterRegistry.get(SigningHttpEventListener.CONNECT_TIMER)
+        .tag("outcome", "success").timer().count()).isOne();
+    assertThat(meterRegistry.get(RestClientConfig.POOL_METRICS_PREFIX + ".connection.count")
+        .tag("state", "idle").gauge().value()).isOne();
+  }
+}
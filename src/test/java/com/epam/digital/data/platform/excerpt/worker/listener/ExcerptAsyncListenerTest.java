@@ -0,0 +1,126 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.listener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
+import com.epam.digital.data.platform.excerpt.model.Request;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptRetryService;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+
+@ExtendWith(MockitoExtension.class)
+class ExcerptAsyncListenerTest {
+
+  private static final ConsumerRecord<String, Object> CONSUMER_RECORD =
+      new ConsumerRecord<>("generate-excerpt", 0, 0, null, null);
+
+  ExcerptAsyncListener instance;
+
+  List<Runnable> tasks = new ArrayList<>();
+
+  @Mock
+  ExcerptListener excerptListener;
+  @Mock
+  ExcerptRetryService excerptRetryService;
+  @Mock
+  KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+  @Mock
+  MessageListenerContainer container;
+  @Mock
+  Acknowledgment acknowledgment;
+
+  @BeforeEach
+  void setup() {
+    instance = new ExcerptAsyncListener(
+        excerptListener, excerptRetryService, tasks::add, kafkaListenerEndpointRegistry, 2);
+  }
+
+  @Test
+  void shouldAcknowledgeAfterProcessing() {
+    var input = new Request<>(new ExcerptEventDto());
+
+    instance.generate(input, CONSUMER_RECORD, acknowledgment, null);
+
+    verify(acknowledgment, never()).acknowledge();
+    tasks.forEach(Runnable::run);
+    verify(excerptListener).generate(input, null, CONSUMER_RECORD);
+    verify(acknowledgment).acknowledge();
+    assertThat(instance.getInFlight()).isZero();
+  }
+
+  @Test
+  void shouldRescheduleAndAcknowledgeWhenProcessingFails() {
+    var input = new Request<>(new ExcerptEventDto());
+    var failure = new IllegalStateException();
+    doThrow(failure).when(excerptListener).generate(input, null, CONSUMER_RECORD);
+    when(excerptRetryService.reschedule(input.getPayload(), CONSUMER_RECORD.headers(), failure))
+        .thenReturn(true);
+
+    instance.generate(input, CONSUMER_RECORD, acknowledgment, null);
+    tasks.forEach(Runnable::run);
+
+    verify(acknowledgment).acknowledge();
+  }
+
+  @Test
+  void shouldNotAcknowledgeWhenFailedEventCanNotBeRescheduled() {
+    var input = new Request<>(new ExcerptEventDto());
+    var failure = new IllegalStateException();
+    doThrow(failure).when(excerptListener).generate(input, null, CONSUMER_RECORD);
+    when(excerptRetryService.reschedule(input.getPayload(), CONSUMER_RECORD.headers(), failure))
+        .thenReturn(false);
+
+    instance.generate(input, CONSUMER_RECORD, acknowledgment, null);
+    tasks.forEach(Runnable::run);
+
+    verify(acknowledgment, never()).acknowledge();
+    assertThat(instance.getInFlight()).isZero();
+  }
+
+  @Test
+  void shouldPauseWhenQueueIsFullAndResumeWhenDrained() {
+    when(kafkaListenerEndpointRegistry.getListenerContainer(ExcerptAsyncListener.LISTENER_ID))
+        .thenReturn(container);
+
+    instance.generate(new Request<>(new ExcerptEventDto()), CONSUMER_RECORD, acknowledgment,
+        null);
+    instance.generate(new Request<>(new ExcerptEventDto()), CONSUMER_RECORD, acknowledgment,
+        null);
+
+    verify(container).pause();
+
+    when(container.isPauseRequested()).thenReturn(true, false);
+    tasks.forEach(Runnable::run);
+
+    verify(container).resume();
+  }
+}
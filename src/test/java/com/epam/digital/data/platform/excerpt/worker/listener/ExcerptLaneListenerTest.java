@@ -0,0 +1,243 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.listener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
+import com.epam.digital.data.platform.excerpt.model.Request;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptInputLoader;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptLaneRouter;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptLaneRouter.Lane;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptMetrics;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptRetryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import org.springframework.util.unit.DataSize;
+
+@ExtendWith(MockitoExtension.class)
+class ExcerptLaneListenerTest {
+
+  private static final String HEAVY_TOPIC = "generate-excerpt-heavy";
+  private static final byte[] TOKEN = "token".getBytes(StandardCharsets.UTF_8);
+
+  ExcerptLaneListener instance;
+  SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  List<Runnable> lightTasks = new ArrayList<>();
+  List<Runnable> heavyTasks = new ArrayList<>();
+
+  @Mock
+  ExcerptListener excerptListener;
+  @Mock
+  ExcerptInputLoader excerptInputLoader;
+  @Mock
+  ExcerptRetryService excerptRetryService;
+  @Mock
+  KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+  @Mock
+  MessageListenerContainer lightContainer;
+  @Mock
+  MessageListenerContainer heavyContainer;
+  @Mock
+  KafkaTemplate<String, Object> kafkaTemplate;
+  @Mock
+  Acknowledgment acknowledgment;
+  @Captor
+  ArgumentCaptor<ProducerRecord<String, Object>> recordCaptor;
+
+  @BeforeEach
+  void setup() {
+    instance = laneListener(
+        new ExcerptLaneRouter(excerptInputLoader, DataSize.ofKilobytes(1), Duration.ofSeconds(5)));
+  }
+
+  @Test
+  void shouldForwardHeavyEventsToHeavyLaneTopic() {
+    var sent = new SettableListenableFuture<SendResult<String, Object>>();
+    sent.set(null);
+    when(kafkaTemplate.send(recordCaptor.capture())).thenReturn(sent);
+    var light = request("data");
+    var heavy = request("x".repeat(1_000));
+
+    instance.generate(light, consumerRecord(), acknowledgment, null);
+    instance.generate(heavy, consumerRecord(), acknowledgment, 42L);
+
+    assertThat(lightTasks).hasSize(1);
+    assertThat(heavyTasks).isEmpty();
+    assertThat(recordCaptor.getValue().topic()).isEqualTo(HEAVY_TOPIC);
+    assertThat(recordCaptor.getValue().timestamp()).isEqualTo(42L);
+    assertThat(recordCaptor.getValue().value()).isSameAs(heavy);
+    assertThat(recordCaptor.getValue().headers().lastHeader("x-access-token").value())
+        .isEqualTo(TOKEN);
+    verify(acknowledgment).acknowledge();
+
+    lightTasks.forEach(Runnable::run);
+    verify(excerptListener).generate(eq(light), isNull(), any(), any());
+    verify(excerptListener, never()).generate(eq(heavy), any(), any(), any());
+    assertThat(instance.getInFlight(Lane.LIGHT)).isZero();
+    assertThat(meterRegistry.get("excerpt.lane.latency").tag("lane", "light").timer().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void shouldProcessHeavyLaneTopicInHeavyLane() {
+    var heavy = request("x".repeat(1_000));
+
+    instance.generateHeavy(heavy, consumerRecord(), acknowledgment, null);
+
+    assertThat(heavyTasks).hasSize(1);
+    assertThat(meterRegistry.get("excerpt.lane.depth").tag("lane", "heavy").gauge().value())
+        .isEqualTo(1);
+
+    heavyTasks.forEach(Runnable::run);
+    verify(excerptListener).generate(eq(heavy), isNull(), any(), any());
+    verify(acknowledgment).acknowledge();
+    assertThat(instance.getInFlight(Lane.HEAVY)).isZero();
+  }
+
+  @Test
+  void shouldProcessHeavyEventInLightLaneWhenForwardingFails() {
+    var failed = new SettableListenableFuture<SendResult<String, Object>>();
+    failed.setException(new IllegalStateException());
+    when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(failed);
+    var heavy = request("x".repeat(1_000));
+
+    instance.generate(heavy, consumerRecord(), acknowledgment, null);
+
+    assertThat(lightTasks).hasSize(1);
+    verify(acknowledgment, never()).acknowledge();
+  }
+
+  @Test
+  void shouldRescheduleAndAcknowledgeWhenProcessingFails() {
+    var input = request("data");
+    var failure = new IllegalStateException();
+    doThrow(failure).when(excerptListener).generate(eq(input), isNull(), any(), any());
+    when(excerptRetryService.reschedule(eq(input.getPayload()), any(), eq(failure)))
+        .thenReturn(true);
+
+    instance.generate(input, consumerRecord(), acknowledgment, null);
+    lightTasks.forEach(Runnable::run);
+
+    verify(acknowledgment).acknowledge();
+  }
+
+  @Test
+  void shouldNotAcknowledgeWhenFailedEventCanNotBeRescheduled() {
+    var input = request("data");
+    var failure = new IllegalStateException();
+    doThrow(failure).when(excerptListener).generate(eq(input), isNull(), any(), any());
+    when(excerptRetryService.reschedule(eq(input.getPayload()), any(), eq(failure)))
+        .thenReturn(false);
+
+    instance.generate(input, consumerRecord(), acknowledgment, null);
+    lightTasks.forEach(Runnable::run);
+
+    verify(acknowledgment, never()).acknowledge();
+    assertThat(instance.getInFlight(Lane.LIGHT)).isZero();
+  }
+
+  @Test
+  void shouldNotLearnTemplateDurationFromEndToEndProcessing() {
+    var input = request("data");
+    doAnswer(invocation -> {
+      Thread.sleep(20);
+      return null;
+    }).when(excerptListener).generate(eq(input), isNull(), any(), any());
+    var router = new ExcerptLaneRouter(excerptInputLoader, DataSize.ofKilobytes(1),
+        Duration.ofMillis(1));
+    var listener = laneListener(router);
+
+    listener.generate(input, consumerRecord(), acknowledgment, null);
+    lightTasks.forEach(Runnable::run);
+
+    assertThat(router.route(input.getPayload())).isEqualTo(Lane.LIGHT);
+  }
+
+  @Test
+  void shouldPauseOnlyTheFullLaneAndResumeItWhenDrained() {
+    when(kafkaListenerEndpointRegistry.getListenerContainer(
+        ExcerptLaneListener.HEAVY_LISTENER_ID)).thenReturn(heavyContainer);
+
+    instance.generateHeavy(request("x".repeat(1_000)), consumerRecord(), acknowledgment,
+        null);
+
+    verify(heavyContainer).pause();
+    verify(lightContainer, never()).pause();
+
+    when(heavyContainer.isPauseRequested()).thenReturn(true);
+    heavyTasks.forEach(Runnable::run);
+
+    verify(heavyContainer).resume();
+  }
+
+  private ExcerptLaneListener laneListener(ExcerptLaneRouter excerptLaneRouter) {
+    return new ExcerptLaneListener(
+        excerptListener,
+        excerptLaneRouter,
+        new ExcerptMetrics(meterRegistry),
+        excerptRetryService,
+        kafkaListenerEndpointRegistry,
+        kafkaTemplate,
+        HEAVY_TOPIC,
+        Duration.ofSeconds(1),
+        Clock.systemUTC(),
+        lightTasks::add, 2,
+        heavyTasks::add, 1);
+  }
+
+  private static ConsumerRecord<String, Object> consumerRecord() {
+    var consumerRecord = new ConsumerRecord<String, Object>("generate-excerpt", 0, 0, null, null);
+    consumerRecord.headers().add("x-access-token", TOKEN);
+    return consumerRecord;
+  }
+
+  private Request<ExcerptEventDto> request(String value) {
+    return new Request<>(
+        new ExcerptEventDto(UUID.randomUUID(), "excerptType", Map.of("field", value), false));
+  }
+}
@@ -16,11 +16,24 @@
 
 package com.epam.digital.data.platform.excerpt.worker.listener;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
 import com.epam.digital.data.platform.excerpt.model.Request;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptMetrics;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptResult;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptRetryService;
 import com.epam.digital.data.platform.excerpt.worker.service.ExcerptService;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -32,20 +45,60 @@ class ExcerptListenerTest {
 
   ExcerptListener instance;
 
+  static final Instant NOW = Instant.parse("2021-01-01T00:00:10Z");
+
   @Mock
   ExcerptService excerptService;
+  @Mock
+  ExcerptRetryService excerptRetryService;
+  @Mock
+  ExcerptMetrics excerptMetrics;
 
   @BeforeEach
   void setup() {
-    instance = new ExcerptListener(excerptService);
+    instance = new ExcerptListener(excerptService, excerptRetryService, excerptMetrics,
+        Clock.fixed(NOW, ZoneOffset.UTC));
   }
 
   @Test
   void callService() {
     var input = new Request<ExcerptEventDto>();
 
-    instance.generate(input);
+    instance.generate(input, null, consumerRecord());
 
     verify(excerptService).generateExcerpt(input.getPayload());
+    verify(excerptMetrics, never()).recordQueueWait(any(), any(), any());
+  }
+
+  @Test
+  void shouldRecordQueueWaitFromRecordTimestamp() {
+    var event = new ExcerptEventDto();
+    event.setExcerptType("type");
+    var result = ExcerptResult.completed("key", "checksum");
+    when(excerptService.generateExcerpt(event)).thenReturn(result);
+
+    instance.generate(new Request<>(event), NOW.minusSeconds(3).toEpochMilli(),
+        consumerRecord());
+
+    verify(excerptMetrics).recordQueueWait("type", result, Duration.ofSeconds(3));
+  }
+
+  @Test
+  void shouldTrackSourceHeadersWhileGenerating() {
+    var event = new ExcerptEventDto();
+    event.setRecordId(UUID.randomUUID());
+    var consumerRecord = consumerRecord();
+
+    instance.generate(new Request<>(event), null, consumerRecord);
+
+    var inOrder = inOrder(excerptRetryService, excerptService);
+    inOrder.verify(excerptRetryService)
+        .trackSourceHeaders(event.getRecordId(), consumerRecord.headers());
+    inOrder.verify(excerptService).generateExcerpt(event);
+    inOrder.verify(excerptRetryService).releaseSourceHeaders(event.getRecordId());
+  }
+
+  private static ConsumerRecord<String, Object> consumerRecord() {
+    return new ConsumerRecord<>("generate-excerpt", 0, 0, null, null);
   }
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.listener;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.epam.digital.data.platform.excerpt.worker.repository.ExcerptTemplateRepository;
+import com.epam.digital.data.platform.excerpt.worker.repository.TemplateChecksum;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptTemplateCache;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class TemplateChangeListenerTest {
+
+  TemplateChangeListener instance;
+
+  @Mock
+  DataSource dataSource;
+  @Mock
+  ExcerptTemplateRepository templateRepository;
+  @Mock
+  ExcerptTemplateCache templateCache;
+
+  @BeforeEach
+  void setup() {
+    instance = new TemplateChangeListener(dataSource, templateRepository, templateCache, false,
+        "excerpt_template_changed", Duration.ofSeconds(1));
+  }
+
+  @Test
+  void shouldEvictTemplateById() {
+    var templateId = UUID.randomUUID();
+
+    instance.onNotification(templateId.toString());
+
+    verify(templateCache).evict(templateId);
+  }
+
+  @Test
+  void shouldEvictTemplateByName() {
+    instance.onNotification("template");
+
+    verify(templateCache).evict("template");
+  }
+
+  @Test
+  void shouldEvictAllOnEmptyPayload() {
+    instance.onNotification("");
+
+    verify(templateCache).evictAll();
+  }
+
+  @Test
+  void shouldEvictChangedTemplatesOnPoll() {
+    var templateId = UUID.randomUUID();
+    when(templateRepository.findAllChecksums()).thenReturn(List.of(new TemplateChecksum() {
+      @Override
+      public UUID getId() {
+        return templateId;
+      }
+
+      @Override
+      public String getChecksum() {
+        return "checksum";
+      }
+    }));
+
+    instance.pollChecksums();
+
+    verify(templateCache).evictChanged(Map.of(templateId, "checksum"));
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.repository;
+
+import static com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus.FAILED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import com.epam.digital.data.platform.excerpt.worker.exception.ExcerptProcessingException;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptResult;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class ExcerptRecordBatchRepositoryTest {
+
+  private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2021, 1, 1, 0, 0);
+
+  @Mock
+  JdbcTemplate jdbcTemplate;
+  @Captor
+  ArgumentCaptor<List<Object[]>> argsCaptor;
+
+  @Test
+  void shouldBatchTargetedUpdatesAndReportMissingRecords() {
+    var completedId = UUID.randomUUID();
+    var failedId = UUID.randomUUID();
+    when(jdbcTemplate.batchUpdate(eq(ExcerptRecordBatchRepository.UPDATE_COMPLETED),
+        argsCaptor.capture())).thenReturn(new int[] {1});
+    when(jdbcTemplate.batchUpdate(eq(ExcerptRecordBatchRepository.UPDATE_STATUS),
+        argsCaptor.capture())).thenReturn(new int[] {0});
+
+    var updated = new ExcerptRecordBatchRepository(jdbcTemplate).updateResults(Map.of(
+        completedId, ExcerptResult.completed("excerpt-key", "checksum"),
+        failedId, ExcerptResult.failed(
+            new ExcerptProcessingException(FAILED, "Excerpt template not found"))), UPDATED_AT);
+
+    assertThat(updated).containsExactly(completedId);
+    assertThat(argsCaptor.getAllValues().get(0).get(0))
+        .containsExactly("COMPLETED", "excerpt-key", "checksum", UPDATED_AT, completedId);
+    assertThat(argsCaptor.getAllValues().get(1).get(0))
+        .containsExactly("FAILED", "Excerpt template not found", UPDATED_AT, failedId);
+  }
+}
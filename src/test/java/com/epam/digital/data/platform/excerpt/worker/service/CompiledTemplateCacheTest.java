@@ -0,0 +1,92 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import static com.epam.digital.data.platform.excerpt.worker.service.CompiledTemplateCache.CACHE_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.epam.digital.data.platform.excerpt.dao.ExcerptTemplate;
+import com.epam.digital.data.platform.excerpt.worker.config.FreeMarkerConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CompiledTemplateCacheTest {
+
+  private static final UUID TEMPLATE_ID = UUID.fromString("11111111-1111-1111-1111-111111111111");
+
+  private SimpleMeterRegistry meterRegistry;
+  private CompiledTemplateCache templateCache;
+
+  @BeforeEach
+  void init() {
+    meterRegistry = new SimpleMeterRegistry();
+    templateCache = new CompiledTemplateCache(
+        new FreeMarkerConfiguration().getConfig(), meterRegistry, 10);
+  }
+
+  @Test
+  void shouldReuseCompiledTemplateForSameContent() throws IOException {
+    var first = templateCache.get(excerptTemplate("My name is [=name]"));
+    var second = templateCache.get(excerptTemplate("My name is [=name]"));
+
+    assertThat(second).isSameAs(first);
+    assertThat(meterRegistry.get("cache.gets").tag("cache", CACHE_NAME).tag("result", "hit")
+        .functionCounter().count()).isEqualTo(1);
+    assertThat(meterRegistry.get("cache.gets").tag("cache", CACHE_NAME).tag("result", "miss")
+        .functionCounter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldRecompileWhenTemplateContentChanged() throws IOException {
+    var first = templateCache.get(excerptTemplate("My name is [=name]"));
+    var second = templateCache.get(excerptTemplate("Your name is [=name]"));
+
+    assertThat(second).isNotSameAs(first);
+    assertThat(second.toString()).isEqualTo("Your name is [=name]");
+  }
+
+  @Test
+  void shouldRecompileAfterEviction() throws IOException {
+    var first = templateCache.get(excerptTemplate("My name is [=name]"));
+
+    templateCache.evict(TEMPLATE_ID);
+    var second = templateCache.get(excerptTemplate("My name is [=name]"));
+
+    assertThat(second).isNotSameAs(first);
+  }
+
+  @Test
+  void shouldPropagateTemplateSyntaxErrorWithoutCaching() {
+    assertThatThrownBy(() -> templateCache.get(excerptTemplate("My name is [=name")))
+        .isInstanceOf(IOException.class);
+
+    assertThat(meterRegistry.get("cache.size").tag("cache", CACHE_NAME).gauge().value())
+        .isZero();
+  }
+
+  private ExcerptTemplate excerptTemplate(String content) {
+    var excerptTemplate = new ExcerptTemplate();
+    excerptTemplate.setId(TEMPLATE_ID);
+    excerptTemplate.setTemplateName("Test");
+    excerptTemplate.setTemplate(content);
+    return excerptTemplate;
+  }
+}
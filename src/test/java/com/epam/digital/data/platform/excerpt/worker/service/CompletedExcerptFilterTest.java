@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import static com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus.COMPLETED;
+import static com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus.IN_PROGRESS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.epam.digital.data.platform.excerpt.dao.ExcerptRecord;
+import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
+import com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus;
+import com.epam.digital.data.platform.excerpt.worker.exception.ExcerptProcessingException;
+import com.epam.digital.data.platform.excerpt.worker.repository.ExcerptRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CompletedExcerptFilterTest {
+
+  CompletedExcerptFilter instance;
+  SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Mock
+  ExcerptRecordRepository recordRepository;
+
+  @BeforeEach
+  void setup() {
+    instance = new CompletedExcerptFilter(recordRepository, new ExcerptMetrics(meterRegistry),
+        true, 10);
+  }
+
+  @Test
+  void shouldFindCompletedRecordsOfBatchWithSingleQuery() {
+    var completed = event();
+    var pending = event();
+    var recent = event();
+    instance.markCompleted(recent.getRecordId(), ExcerptResult.completed("recent", "sum"));
+    when(recordRepository.findAllById(Set.of(completed.getRecordId(), pending.getRecordId())))
+        .thenReturn(List.of(record(completed, COMPLETED), record(pending, IN_PROGRESS)));
+
+    var results = instance.findCompleted(List.of(completed, pending, recent));
+
+    assertThat(results).containsOnlyKeys(completed.getRecordId(), recent.getRecordId());
+    assertThat(results.get(completed.getRecordId()).getExcerptKey()).isEqualTo("key");
+    assertThat(meterRegistry.get(ExcerptMetrics.DUPLICATES_SKIPPED).counters()).hasSize(2);
+  }
+
+  @Test
+  void shouldNotCacheResultsThatAreNotCompleted() {
+    var event = event();
+    var failed = ExcerptResult.failed(
+        new ExcerptProcessingException(ExcerptProcessingStatus.FAILED, "failed"));
+
+    instance.markCompleted(event.getRecordId(), failed);
+
+    assertThat(instance.findCompleted(event)).isEmpty();
+    verify(recordRepository).findById(event.getRecordId());
+  }
+
+  @Test
+  void shouldNotQueryDatabaseWhenDisabled() {
+    instance = new CompletedExcerptFilter(recordRepository, new ExcerptMetrics(meterRegistry),
+        false, 10);
+
+    assertThat(instance.findCompleted(event())).isEmpty();
+    assertThat(instance.findCompleted(List.of(event()))).isEqualTo(Map.of());
+    verify(recordRepository, never()).findAllById(any());
+  }
+
+  private ExcerptEventDto event() {
+    return new ExcerptEventDto(UUID.randomUUID(), "excerptType", Map.of(), false);
+  }
+
+  private ExcerptRecord record(ExcerptEventDto event, ExcerptProcessingStatus status) {
+    var record = new ExcerptRecord();
+    record.setId(event.getRecordId());
+    record.setStatus(status);
+    record.setExcerptKey("key");
+    record.setChecksum("checksum");
+    return record;
+  }
+}
@@ -23,15 +23,22 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import com.epam.digital.data.platform.excerpt.dao.ExcerptTemplate;
 import com.epam.digital.data.platform.excerpt.worker.config.FreeMarkerConfiguration;
 import com.epam.digital.data.platform.excerpt.worker.config.GenericConfig;
+import com.epam.digital.data.platform.excerpt.worker.config.PdfRendererProperties;
 import com.epam.digital.data.platform.excerpt.worker.exception.ExcerptProcessingException;
 import freemarker.template.Configuration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.unit.DataSize;
 
 @ExtendWith(SpringExtension.class)
 @Import({FreeMarkerConfiguration.class, GenericConfig.class})
@@ -41,17 +48,39 @@ class DocumentRendererTest {
   private Configuration freemarker;
 
   private HtmlRenderer htmlRenderer;
-  private PdfRenderer pdfRenderer = new OpenHtmlToPdfPdfRenderer();
+  private PdfRenderer pdfRenderer;
 
   @BeforeEach
   void init() {
-    htmlRenderer = new FreemarkerHtmlRenderer(freemarker);
+    htmlRenderer = new FreemarkerHtmlRenderer(
+        new CompiledTemplateCache(freemarker, new SimpleMeterRegistry(), 10));
+    pdfRenderer = new OpenHtmlToPdfPdfRenderer(fontRegistry(), pdfRendererProperties(),
+        new SimpleMeterRegistry());
+  }
+
+  @Test
+  void shouldShareFontDataAcrossRenders() {
+    var meterRegistry = new SimpleMeterRegistry();
+    var fontRegistry = new FontRegistry(
+        pdfRendererProperties(), new DefaultResourceLoader(), meterRegistry);
+
+    var renderer = new OpenHtmlToPdfPdfRenderer(fontRegistry, pdfRendererProperties(),
+        meterRegistry);
+    renderer.render("<html><head></head><body style='font-family: Roboto'>Привіт</body></html>",
+        new ByteArrayOutputStream());
+    renderer.render("<html><head></head><body style='font-family: Roboto'>Вітаю</body></html>",
+        new ByteArrayOutputStream());
+
+    assertThat(fontRegistry.getFontDataSize()).isPositive();
+    assertThat(meterRegistry.get("excerpt.pdf.fonts.bytes").gauge().value())
+        .isEqualTo(fontRegistry.getFontDataSize());
+    assertThat(meterRegistry.get("excerpt.pdf.font.metrics.size").gauge().value()).isOne();
   }
 
   @Test
   void shouldThrowExceptionWithHtmlToPdfConversionError() {
     var exception = assertThrows(ExcerptProcessingException.class,
-        () -> pdfRenderer.render(""));
+        () -> pdfRenderer.render("", new ByteArrayOutputStream()));
 
     assertThat(exception.getStatus()).isEqualTo(FAILED);
     assertThat(exception.getDetails()).isEqualTo("HTML to PDF conversion fails");
@@ -59,9 +88,10 @@ class DocumentRendererTest {
 
   @Test
   void htmlToPdfHappyPath() {
-    var bytes = pdfRenderer.render("<html><head></head><body>Hello</body></html>");
+    var result = new ByteArrayOutputStream();
+    pdfRenderer.render("<html><head></head><body>Hello</body></html>", result);
 
-    assertThat(bytes.length).isNotNull();
+    assertThat(result.size()).isPositive();
   }
 
   @Test
@@ -97,4 +127,49 @@ class DocumentRendererTest {
 
     assertThat(exception.getStatus()).isEqualTo(FAILED);
   }
+
+  @Test
+  void shouldRenderLargeDocumentWithDiskBackedScratchMemory() {
+    var meterRegistry = new SimpleMeterRegistry();
+    var properties = pdfRendererProperties();
+    properties.getLargeDocument().setHtmlThreshold(DataSize.ofBytes(0));
+    properties.getLargeDocument().setMainMemory(DataSize.ofBytes(0));
+    var renderer = new OpenHtmlToPdfPdfRenderer(fontRegistry(), properties, meterRegistry);
+    var pdf = new ByteArrayOutputStream();
+
+    renderer.render("<html><head></head><body style='font-family: Roboto'>Привіт</body></html>",
+        pdf);
+
+    assertThat(new String(pdf.toByteArray(), 0, 5, StandardCharsets.US_ASCII))
+        .isEqualTo("%PDF-");
+    var scratchSpill = meterRegistry.get("excerpt.pdf.scratch.spill").summary();
+    assertThat(scratchSpill.count()).isOne();
+    assertThat(scratchSpill.totalAmount()).isPositive();
+  }
+
+  @Test
+  void shouldCompareLargeDocumentThresholdWithUtf8Size() {
+    var properties = pdfRendererProperties();
+    properties.getLargeDocument().setHtmlThreshold(DataSize.ofBytes(12));
+    var renderer = new OpenHtmlToPdfPdfRenderer(fontRegistry(), properties,
+        new SimpleMeterRegistry());
+
+    assertThat(RenderMemoryBudget.utf8Length("Привіт")).isEqualTo(12);
+    assertThat(renderer.isLargeDocument("Привіт")).isTrue();
+    assertThat(renderer.isLargeDocument("Hello!")).isFalse();
+  }
+
+  private FontRegistry fontRegistry() {
+    return new FontRegistry(
+        pdfRendererProperties(), new DefaultResourceLoader(), new SimpleMeterRegistry());
+  }
+
+  private PdfRendererProperties pdfRendererProperties() {
+    var font = new PdfRendererProperties.Font();
+    font.setLocation("classpath:fonts/Roboto.ttf");
+    font.setFamily("Roboto");
+    var properties = new PdfRendererProperties();
+    properties.setFonts(List.of(font));
+    return properties;
+  }
 }
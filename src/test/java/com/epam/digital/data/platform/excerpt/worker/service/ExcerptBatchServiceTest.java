@@ -0,0 +1,120 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
+import com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus;
+import com.epam.digital.data.platform.excerpt.dao.ExcerptTemplate;
+import com.epam.digital.data.platform.excerpt.worker.exception.ExcerptProcessingException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ExcerptBatchServiceTest {
+
+  ExcerptBatchService instance;
+
+  @Mock
+  ExcerptService excerptService;
+
+  @Captor
+  ArgumentCaptor<Map<UUID, ExcerptResult>> resultsCaptor;
+
+  @BeforeEach
+  void setup() {
+    instance = new ExcerptBatchService(excerptService, Runnable::run);
+  }
+
+  @Test
+  void shouldResolveTemplateOncePerTypeAndSaveResultsTogether() {
+    var template = new ExcerptTemplate();
+    var first = event("type");
+    var second = event("type");
+    when(excerptService.findTemplate("type")).thenReturn(Optional.of(template));
+    when(excerptService.renderAndStore(any(), any()))
+        .thenReturn(ExcerptResult.completed("key", "checksum"));
+
+    instance.generateExcerpts(List.of(first, second));
+
+    verify(excerptService).findTemplate("type");
+    verify(excerptService, times(2)).renderAndStore(any(), any());
+    verify(excerptService).saveResults(resultsCaptor.capture());
+    assertThat(resultsCaptor.getValue()).containsOnlyKeys(first.getRecordId(),
+        second.getRecordId());
+  }
+
+  @Test
+  void shouldSaveFailedResultWhenTemplateMissing() {
+    var event = event("missing");
+    var failed = ExcerptResult.failed(new ExcerptProcessingException(
+        ExcerptProcessingStatus.FAILED, "Excerpt template not found"));
+    when(excerptService.findTemplate("missing")).thenReturn(Optional.empty());
+    when(excerptService.templateNotFound()).thenReturn(failed);
+
+    instance.generateExcerpts(List.of(event));
+
+    verify(excerptService, never()).renderAndStore(any(), any());
+    var expected = new HashMap<UUID, ExcerptResult>();
+    expected.put(event.getRecordId(), failed);
+    verify(excerptService).saveResults(expected);
+  }
+
+  @Test
+  void shouldSkipCompletedRecords() {
+    var completed = event("type");
+    var pending = event("type");
+    var stored = ExcerptResult.completed("stored", "checksum");
+    when(excerptService.findCompleted(List.of(completed, pending)))
+        .thenReturn(Map.of(completed.getRecordId(), stored));
+    when(excerptService.findTemplate("type")).thenReturn(Optional.of(new ExcerptTemplate()));
+    when(excerptService.renderAndStore(any(), any()))
+        .thenReturn(ExcerptResult.completed("key", "checksum"));
+
+    var results = instance.generateExcerpts(List.of(completed, pending));
+
+    verify(excerptService, times(1)).renderAndStore(any(), any());
+    verify(excerptService, never()).renderAndStore(eq(completed), any());
+    verify(excerptService).saveResults(resultsCaptor.capture());
+    assertThat(resultsCaptor.getValue()).containsOnlyKeys(pending.getRecordId());
+    assertThat(results).containsEntry(completed.getRecordId(), stored);
+  }
+
+  private ExcerptEventDto event(String excerptType) {
+    var event = new ExcerptEventDto();
+    event.setRecordId(UUID.randomUUID());
+    event.setExcerptType(excerptType);
+    return event;
+  }
+}
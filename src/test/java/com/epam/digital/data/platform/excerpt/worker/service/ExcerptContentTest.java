@@ -0,0 +1,56 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+
+class ExcerptContentTest {
+
+  private static final byte[] CONTENT = {70, 71, 72, 73, 74, 75, 76, 77};
+
+  @Test
+  void shouldKeepSmallContentInMemory() throws IOException {
+    try (var content = new ExcerptContent(CONTENT.length)) {
+      content.getOutputStream().write(CONTENT);
+
+      assertThat(content.isInMemory()).isTrue();
+      assertThat(content.getSize()).isEqualTo(CONTENT.length);
+      assertThat(content.getInputStream().readAllBytes()).isEqualTo(CONTENT);
+      assertThat(content.getChecksum()).isEqualTo(DigestUtils.sha256Hex(CONTENT));
+    }
+  }
+
+  @Test
+  void shouldSpillLargeContentToTemporaryFile() throws IOException {
+    try (var content = new ExcerptContent(4)) {
+      content.getOutputStream().write(CONTENT, 0, 3);
+      content.getOutputStream().write(CONTENT, 3, 5);
+
+      assertThat(content.isInMemory()).isFalse();
+      assertThat(content.getSize()).isEqualTo(CONTENT.length);
+      try (var stream = content.getInputStream()) {
+        assertThat(stream.available()).isEqualTo(CONTENT.length);
+        assertThat(stream.readAllBytes()).isEqualTo(CONTENT);
+      }
+      assertThat(content.getChecksum()).isEqualTo(DigestUtils.sha256Hex(CONTENT));
+    }
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import com.epam.digital.data.platform.excerpt.dao.ExcerptTemplate;
+import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
+import com.epam.digital.data.platform.integration.ceph.model.CephObjectMetadata;
+import com.epam.digital.data.platform.integration.ceph.service.CephService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ExcerptDeduplicatorTest {
+
+  static final String BUCKET = "bucket";
+
+  ExcerptDeduplicator instance;
+
+  @Mock
+  CephService datafactoryCephService;
+
+  ExcerptTemplate excerptTemplate;
+  AtomicInteger renders = new AtomicInteger();
+
+  @BeforeEach
+  void setup() {
+    instance = new ExcerptDeduplicator(datafactoryCephService, new ObjectMapper(), BUCKET, true,
+        100);
+    excerptTemplate = new ExcerptTemplate();
+    excerptTemplate.setId(UUID.randomUUID());
+    excerptTemplate.setTemplate("<p>[=name]</p>");
+  }
+
+  @Test
+  void shouldRenderOnceForSameInputInDifferentOrder() {
+    var first = new LinkedHashMap<String, Object>();
+    first.put("a", 1);
+    first.put("b", 2);
+    var second = new LinkedHashMap<String, Object>();
+    second.put("b", 2);
+    second.put("a", 1);
+
+    var firstResult = instance.deduplicate(event(first), excerptTemplate, this::render);
+    var secondResult = instance.deduplicate(event(second), excerptTemplate, this::render);
+
+    assertThat(renders).hasValue(1);
+    assertThat(secondResult).isSameAs(firstResult);
+    assertThat(firstResult.getExcerptKey()).startsWith(ExcerptDeduplicator.KEY_PREFIX);
+  }
+
+  @Test
+  void shouldRenderAgainForDifferentInput() {
+    instance.deduplicate(event(Map.of("a", 1)), excerptTemplate, this::render);
+    instance.deduplicate(event(Map.of("a", 2)), excerptTemplate, this::render);
+
+    assertThat(renders).hasValue(2);
+  }
+
+  @Test
+  void shouldReuseExcerptStoredInCeph() {
+    when(datafactoryCephService.getMetadata(eq(BUCKET), any())).thenReturn(List.of(
+        CephObjectMetadata.builder()
+            .userMetadata(Map.of(ExcerptDeduplicator.CHECKSUM_METADATA, "stored"))
+            .build()));
+
+    var result = instance.deduplicate(event(Map.of("a", 1)), excerptTemplate, this::render);
+
+    assertThat(renders).hasValue(0);
+    assertThat(result.getChecksum()).isEqualTo("stored");
+  }
+
+  @Test
+  void shouldCoalesceConcurrentIdenticalRequests() throws Exception {
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var leader = CompletableFuture.supplyAsync(() ->
+        instance.deduplicate(event(Map.of("a", 1)), excerptTemplate, cephKey -> {
+          started.countDown();
+          await(release);
+          return render(cephKey);
+        }));
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    var follower = CompletableFuture.supplyAsync(() ->
+        instance.deduplicate(event(Map.of("a", 1)), excerptTemplate, this::render));
+    release.countDown();
+
+    assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(leader.get(5, TimeUnit.SECONDS));
+    assertThat(renders).hasValue(1);
+  }
+
+  private ExcerptResult render(String cephKey) {
+    renders.incrementAndGet();
+    return ExcerptResult.completed(cephKey, "checksum");
+  }
+
+  private ExcerptEventDto event(Map<String, Object> inputData) {
+    return new ExcerptEventDto(UUID.randomUUID(), "type", inputData, false);
+  }
+
+  private void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
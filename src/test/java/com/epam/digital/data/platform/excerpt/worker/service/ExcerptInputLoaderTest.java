@@ -0,0 +1,142 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import static com.epam.digital.data.platform.excerpt.worker.service.ExcerptInputLoader.INPUT_DATA_REFERENCE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
+import com.epam.digital.data.platform.excerpt.worker.exception.ExcerptProcessingException;
+import com.epam.digital.data.platform.excerpt.worker.exception.ExcerptRetryableException;
+import com.epam.digital.data.platform.integration.ceph.model.CephObject;
+import com.epam.digital.data.platform.integration.ceph.model.CephObjectMetadata;
+import com.epam.digital.data.platform.integration.ceph.service.CephService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ExcerptInputLoaderTest {
+
+  private static final String BUCKET = "bucket";
+  private static final String INPUT_KEY = "excerpt-input-1";
+
+  @Mock
+  private CephService cephService;
+
+  @Test
+  void shouldReturnInlineInputData() {
+    var loader = loader(true);
+    var event = event(Map.of("field", "data"));
+
+    assertThat(loader.isReference(event)).isFalse();
+    assertThat(loader.load(event)).isEqualTo(Map.of("field", "data"));
+    loader.release(event);
+    verifyNoInteractions(cephService);
+  }
+
+  @Test
+  void shouldLoadReferencedInputDataAsJsonTree() {
+    var loader = loader(false);
+    var event = event(Map.of(INPUT_DATA_REFERENCE, INPUT_KEY));
+    when(cephService.get(BUCKET, INPUT_KEY))
+        .thenReturn(Optional.of(cephObject("{\"rows\":[1,2]}")));
+
+    var inputData = loader.load(event);
+
+    assertThat(loader.isReference(event)).isTrue();
+    assertThat(inputData).isInstanceOf(JsonNode.class);
+    assertThat(((JsonNode) inputData).get("rows").size()).isEqualTo(2);
+    loader.release(event);
+    verify(cephService, never()).delete(any(), any());
+  }
+
+  @Test
+  void shouldDeleteReferencedInputDataWhenConfigured() {
+    var loader = loader(true);
+
+    loader.release(event(Map.of(INPUT_DATA_REFERENCE, INPUT_KEY)));
+
+    verify(cephService).delete(BUCKET, Set.of(INPUT_KEY));
+  }
+
+  @Test
+  void shouldFailWhenReferencedInputDataMissing() {
+    var loader = loader(false);
+    var event = event(Map.of(INPUT_DATA_REFERENCE, INPUT_KEY));
+    when(cephService.get(BUCKET, INPUT_KEY)).thenReturn(Optional.empty());
+
+    var exception = assertThrows(ExcerptProcessingException.class, () -> loader.load(event));
+
+    assertThat(exception.getDetails())
+        .isEqualTo("Excerpt input data was not found in ceph. Key: " + INPUT_KEY);
+  }
+
+  @Test
+  void shouldRetryWhenReferencedInputDataCanNotBeRetrieved() {
+    var loader = loader(false);
+    var event = event(Map.of(INPUT_DATA_REFERENCE, INPUT_KEY));
+    when(cephService.get(BUCKET, INPUT_KEY)).thenThrow(new IllegalStateException("ceph is down"));
+
+    var exception = assertThrows(ExcerptRetryableException.class, () -> loader.load(event));
+
+    assertThat(exception.getDetails())
+        .isEqualTo("Failed retrieving excerpt input data by key: " + INPUT_KEY);
+    assertThat(exception.isStored()).isFalse();
+  }
+
+  @Test
+  void shouldFailWithoutRetryWhenReferencedInputDataIsNotJson() {
+    var loader = loader(false);
+    var event = event(Map.of(INPUT_DATA_REFERENCE, INPUT_KEY));
+    when(cephService.get(BUCKET, INPUT_KEY)).thenReturn(Optional.of(cephObject("{\"field\":")));
+
+    var exception = assertThrows(ExcerptProcessingException.class, () -> loader.load(event));
+
+    assertThat(exception).isNotInstanceOf(ExcerptRetryableException.class);
+  }
+
+  private ExcerptInputLoader loader(boolean deleteAfterRender) {
+    return new ExcerptInputLoader(cephService, new ObjectMapper(), BUCKET, deleteAfterRender);
+  }
+
+  private ExcerptEventDto event(Map<String, Object> inputData) {
+    return new ExcerptEventDto(UUID.randomUUID(), "type", inputData, false);
+  }
+
+  private CephObject cephObject(String content) {
+    return CephObject.builder()
+        .content(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)))
+        .metadata(CephObjectMetadata.builder().build())
+        .build();
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptLaneRouter.Lane;
+import com.epam.digital.data.platform.integration.ceph.model.CephObjectMetadata;
+import com.epam.digital.data.platform.integration.ceph.service.CephService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+@ExtendWith(MockitoExtension.class)
+class ExcerptLaneRouterTest {
+
+  private static final String EXCERPT_TYPE = "excerptType";
+  private static final String BUCKET = "bucket";
+
+  @Mock
+  CephService datafactoryCephService;
+
+  ExcerptLaneRouter router;
+
+  @BeforeEach
+  void setup() {
+    router = new ExcerptLaneRouter(
+        new ExcerptInputLoader(datafactoryCephService, new ObjectMapper(), BUCKET, false),
+        DataSize.ofKilobytes(1), Duration.ofSeconds(5));
+  }
+
+  @Test
+  void shouldRouteSmallInputToLightLane() {
+    assertThat(router.route(event(Map.of("field", "data")))).isEqualTo(Lane.LIGHT);
+  }
+
+  @Test
+  void shouldRouteLargeInputToHeavyLane() {
+    assertThat(router.route(event(Map.of("field", "x".repeat(1_000))))).isEqualTo(Lane.HEAVY);
+  }
+
+  @Test
+  void shouldRouteLargeInputReferencedInCephToHeavyLane() {
+    when(datafactoryCephService.getMetadata(BUCKET, Set.of("input-key")))
+        .thenReturn(List.of(CephObjectMetadata.builder().contentLength(4_096L).build()));
+
+    assertThat(router.route(event(Map.of(ExcerptInputLoader.INPUT_DATA_REFERENCE, "input-key"))))
+        .isEqualTo(Lane.HEAVY);
+  }
+
+  @Test
+  void shouldRouteInputReferenceOfUnknownSizeToHeavyLane() {
+    when(datafactoryCephService.getMetadata(BUCKET, Set.of("input-key")))
+        .thenThrow(new RuntimeException());
+
+    assertThat(router.route(event(Map.of(ExcerptInputLoader.INPUT_DATA_REFERENCE, "input-key"))))
+        .isEqualTo(Lane.HEAVY);
+  }
+
+  @Test
+  void shouldRouteSlowTemplatesToHeavyLane() {
+    router.recordDuration(EXCERPT_TYPE, Duration.ofSeconds(10));
+
+    assertThat(router.route(event(Map.of("field", "data")))).isEqualTo(Lane.HEAVY);
+  }
+
+  @Test
+  void shouldReturnTemplateToLightLaneWhenItGetsFaster() {
+    router.recordDuration(EXCERPT_TYPE, Duration.ofSeconds(6));
+    for (var i = 0; i < 10; i++) {
+      router.recordDuration(EXCERPT_TYPE, Duration.ofMillis(100));
+    }
+
+    assertThat(router.route(event(Map.of("field", "data")))).isEqualTo(Lane.LIGHT);
+  }
+
+  private ExcerptEventDto event(Map<String, Object> inputData) {
+    return new ExcerptEventDto(UUID.randomUUID(), EXCERPT_TYPE, inputData, false);
+  }
+}
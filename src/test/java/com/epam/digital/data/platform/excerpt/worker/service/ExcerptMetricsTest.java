@@ -0,0 +1,72 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import static com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus.FAILED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.epam.digital.data.platform.excerpt.worker.exception.ExcerptProcessingException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ExcerptMetricsTest {
+
+  SimpleMeterRegistry meterRegistry;
+  ExcerptMetrics instance;
+
+  @BeforeEach
+  void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    instance = new ExcerptMetrics(meterRegistry);
+  }
+
+  @Test
+  void shouldTagStageTimerWithTypeAndOutcome() {
+    var result = instance.recordStage(ExcerptMetrics.HTML_RENDER, "type", () -> "html");
+    assertThrows(ExcerptProcessingException.class,
+        () -> instance.recordStage(ExcerptMetrics.PDF_RENDER, null, () -> {
+          throw new ExcerptProcessingException(FAILED, "failed");
+        }));
+
+    assertThat(result).isEqualTo("html");
+    assertThat(meterRegistry.get(ExcerptMetrics.STAGE_TIMER)
+        .tags("stage", "html-render", "excerptType", "type", "outcome", "success")
+        .timer().count()).isOne();
+    assertThat(meterRegistry.get(ExcerptMetrics.STAGE_TIMER)
+        .tags("stage", "pdf-render", "excerptType", "unknown", "outcome", "failure")
+        .timer().count()).isOne();
+  }
+
+  @Test
+  void shouldRecordSizesAndQueueWait() {
+    var result = ExcerptResult.completed("key", "checksum");
+
+    instance.recordSizes("type", result, 100, 2048);
+    instance.recordQueueWait("type", result, Duration.ofSeconds(2));
+
+    assertThat(meterRegistry.get(ExcerptMetrics.HTML_SIZE).tags("outcome", "success")
+        .summary().totalAmount()).isEqualTo(100);
+    assertThat(meterRegistry.get(ExcerptMetrics.PDF_SIZE).tags("excerptType", "type")
+        .summary().totalAmount()).isEqualTo(2048);
+    assertThat(meterRegistry.get(ExcerptMetrics.QUEUE_WAIT_TIMER).timer().totalTime(
+        TimeUnit.SECONDS)).isEqualTo(2);
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.epam.digital.data.platform.excerpt.dao.ExcerptTemplate;
+import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
+import com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus;
+import com.epam.digital.data.platform.excerpt.worker.exception.ExcerptProcessingException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ExcerptPipelineServiceTest {
+
+  ExcerptPipelineService instance;
+
+  @Mock
+  ExcerptService excerptService;
+
+  @BeforeEach
+  void setup() {
+    instance = new ExcerptPipelineService(excerptService,
+        new ExcerptMetrics(new SimpleMeterRegistry()), Runnable::run, 2);
+  }
+
+  @Test
+  void shouldUpdateEachRecordAfterItsExcerptIsStored() {
+    var template = new ExcerptTemplate();
+    var first = event("type");
+    var second = event("type");
+    var completed = ExcerptResult.completed("key", "checksum");
+    when(excerptService.findTemplate("type")).thenReturn(Optional.of(template));
+    when(excerptService.renderAndStoreAsync(any(), any(), any()))
+        .thenReturn(CompletableFuture.completedFuture(completed));
+
+    var results = instance.generateExcerpts(List.of(first, second));
+
+    assertThat(results).containsOnlyKeys(first.getRecordId(), second.getRecordId());
+    verify(excerptService).findTemplate("type");
+    var inOrder = inOrder(excerptService);
+    inOrder.verify(excerptService).saveResult(first.getRecordId(), completed);
+    inOrder.verify(excerptService).saveResult(second.getRecordId(), completed);
+  }
+
+  @Test
+  void shouldSkipCompletedRecordsWithoutUpdatingThem() {
+    var event = event("type");
+    var stored = ExcerptResult.completed("stored", "checksum");
+    when(excerptService.findCompleted(List.of(event)))
+        .thenReturn(Map.of(event.getRecordId(), stored));
+
+    var results = instance.generateExcerpts(List.of(event));
+
+    assertThat(results).containsEntry(event.getRecordId(), stored);
+    verify(excerptService, never()).findTemplate(any());
+    verify(excerptService, never()).saveResult(any(), any());
+  }
+
+  @Test
+  void shouldSaveFailedResultWhenTemplateMissing() {
+    var event = event("missing");
+    var failed = ExcerptResult.failed(new ExcerptProcessingException(
+        ExcerptProcessingStatus.FAILED, "Excerpt template not found"));
+    when(excerptService.findTemplate("missing")).thenReturn(Optional.empty());
+    when(excerptService.templateNotFound()).thenReturn(failed);
+
+    var results = instance.generateExcerpts(List.of(event));
+
+    verify(excerptService, never()).renderAndStoreAsync(any(), any(), any());
+    verify(excerptService).saveResult(event.getRecordId(), failed);
+    assertThat(results).containsEntry(event.getRecordId(), failed);
+  }
+
+  @Test
+  void shouldFailBatchWhenStageFailsUnexpectedly() {
+    var first = event("type");
+    var second = event("type");
+    when(excerptService.findTemplate("type")).thenReturn(Optional.of(new ExcerptTemplate()));
+    when(excerptService.renderAndStoreAsync(any(), any(), any()))
+        .thenReturn(CompletableFuture.completedFuture(ExcerptResult.completed("key", "sum")));
+    doThrow(new IllegalStateException("db is down"))
+        .when(excerptService).saveResult(any(), any());
+
+    assertThatThrownBy(() -> instance.generateExcerpts(List.of(first, second)))
+        .isInstanceOf(CompletionException.class)
+        .hasCauseInstanceOf(IllegalStateException.class);
+  }
+
+  private ExcerptEventDto event(String excerptType) {
+    var event = new ExcerptEventDto();
+    event.setRecordId(UUID.randomUUID());
+    event.setExcerptType(excerptType);
+    return event;
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import static com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus.FAILED;
+import static com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus.IN_PROGRESS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
+import com.epam.digital.data.platform.excerpt.worker.exception.ExcerptRetryableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.retrytopic.RetryTopicHeaders;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+@ExtendWith(MockitoExtension.class)
+class ExcerptRetryServiceTest {
+
+  private static final ExcerptEventDto EVENT =
+      new ExcerptEventDto(UUID.randomUUID(), "excerptType", Map.of(), false);
+  private static final ExcerptRetryableException FAILURE = new ExcerptRetryableException(
+      "Failed saving file to ceph", "ceph-key", false, new RuntimeException());
+
+  SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Mock
+  KafkaTemplate<String, Object> kafkaTemplate;
+  @Captor
+  ArgumentCaptor<ProducerRecord<String, Object>> recordCaptor;
+
+  @Test
+  void shouldPublishRetryAndKeepRecordInProgress() {
+    var sent = new SettableListenableFuture<SendResult<String, Object>>();
+    sent.set(null);
+    when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(sent);
+
+    var result = retryService(true).schedule(EVENT, FAILURE);
+
+    assertThat(result.getStatus()).isEqualTo(IN_PROGRESS);
+    assertThat(meterRegistry.get(ExcerptRetryService.RETRY_SCHEDULED).counter().count())
+        .isOne();
+  }
+
+  @Test
+  void shouldPublishRetryWithoutCephKeyWhenNothingWasRendered() {
+    var sent = new SettableListenableFuture<SendResult<String, Object>>();
+    sent.set(null);
+    when(kafkaTemplate.send(recordCaptor.capture())).thenReturn(sent);
+    var failure = new ExcerptRetryableException("Failed retrieving excerpt input data by key: k",
+        null, false, new RuntimeException());
+
+    var result = retryService(true).schedule(EVENT, failure);
+
+    assertThat(result.getStatus()).isEqualTo(IN_PROGRESS);
+    assertThat(recordCaptor.getValue().headers().lastHeader(ExcerptRetryService.CEPH_KEY_HEADER))
+        .isNull();
+  }
+
+  @Test
+  void shouldDelayFirstRetryAndKeepSignedStage() {
+    var sent = new SettableListenableFuture<SendResult<String, Object>>();
+    sent.set(null);
+    when(kafkaTemplate.send(recordCaptor.capture())).thenReturn(sent);
+    var failure = new ExcerptRetryableException("Failed retrieving ceph object by key: ceph-key",
+        "ceph-key", true, true, new RuntimeException());
+    var scheduledAt = System.currentTimeMillis();
+
+    retryService(true).schedule(EVENT, failure);
+
+    var headers = recordCaptor.getValue().headers();
+    assertThat(new String(headers.lastHeader(ExcerptRetryService.SIGNED_HEADER).value(),
+        StandardCharsets.UTF_8)).isEqualTo("true");
+    var backoffUntil = new BigInteger(
+        headers.lastHeader(RetryTopicHeaders.DEFAULT_HEADER_BACKOFF_TIMESTAMP).value());
+    assertThat(backoffUntil.longValue()).isGreaterThanOrEqualTo(scheduledAt + 1000);
+  }
+
+  @Test
+  void shouldFailAndDropParkedPdfWhenRetryCanNotBePublished() {
+    var sent = new SettableListenableFuture<SendResult<String, Object>>();
+    sent.setException(new IllegalStateException());
+    when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(sent);
+    var retryService = retryService(true);
+    retryService.park("ceph-key", new ExcerptContent(1024));
+
+    var result = retryService.schedule(EVENT, FAILURE);
+
+    assertThat(result.getStatus()).isEqualTo(FAILED);
+    assertThat(result.getStatusDetails()).isEqualTo("Failed saving file to ceph");
+    assertThat(retryService.getParkedCount()).isZero();
+  }
+
+  @Test
+  void shouldFailWithoutPublishingWhenDisabled() {
+    var retryService = retryService(false);
+    retryService.park("ceph-key", new ExcerptContent(1024));
+
+    var result = retryService.schedule(EVENT, FAILURE);
+
+    assertThat(result.getStatus()).isEqualTo(FAILED);
+    assertThat(retryService.getParkedCount()).isZero();
+    verify(kafkaTemplate, never()).send(any(ProducerRecord.class));
+  }
+
+  @Test
+  void shouldCopySourceHeadersOntoRetryRecord() {
+    var sent = new SettableListenableFuture<SendResult<String, Object>>();
+    sent.set(null);
+    when(kafkaTemplate.send(recordCaptor.capture())).thenReturn(sent);
+    var source = new RecordHeaders();
+    source.add("x-access-token", "token".getBytes(StandardCharsets.UTF_8));
+    source.add(ExcerptRetryService.SIGNED_HEADER, "true".getBytes(StandardCharsets.UTF_8));
+    var retryService = retryService(true);
+
+    retryService.trackSourceHeaders(EVENT.getRecordId(), source);
+    retryService.schedule(EVENT, FAILURE);
+    retryService.releaseSourceHeaders(EVENT.getRecordId());
+    retryService.schedule(EVENT, FAILURE);
+
+    var records = recordCaptor.getAllValues();
+    assertThat(new String(records.get(0).headers().lastHeader("x-access-token").value(),
+        StandardCharsets.UTF_8)).isEqualTo("token");
+    assertThat(records.get(0).headers().headers(ExcerptRetryService.SIGNED_HEADER)).isEmpty();
+    assertThat(records.get(1).headers().lastHeader("x-access-token")).isNull();
+  }
+
+  @Test
+  void shouldRescheduleUnexpectedFailureWithSourceHeaders() {
+    var sent = new SettableListenableFuture<SendResult<String, Object>>();
+    sent.set(null);
+    when(kafkaTemplate.send(recordCaptor.capture())).thenReturn(sent);
+    var source = new RecordHeaders();
+    source.add("x-access-token", "token".getBytes(StandardCharsets.UTF_8));
+
+    var rescheduled = retryService(true).reschedule(EVENT, source, new IllegalStateException());
+
+    assertThat(rescheduled).isTrue();
+    assertThat(recordCaptor.getValue().headers().lastHeader("x-access-token")).isNotNull();
+  }
+
+  @Test
+  void shouldNotRescheduleUnexpectedFailureWhenDisabled() {
+    var rescheduled = retryService(false)
+        .reschedule(EVENT, new RecordHeaders(), new IllegalStateException());
+
+    assertThat(rescheduled).isFalse();
+    verify(kafkaTemplate, never()).send(any(ProducerRecord.class));
+  }
+
+  @Test
+  void shouldDropOldestParkedPdfWhenFull() {
+    var retryService = retryService(true);
+
+    retryService.park("first", new ExcerptContent(1024));
+    retryService.park("second", new ExcerptContent(1024));
+    retryService.park("third", new ExcerptContent(1024));
+
+    assertThat(retryService.getParkedCount()).isEqualTo(2);
+    assertThat(retryService.unpark("first")).isEmpty();
+    assertThat(retryService.unpark("third")).isPresent();
+  }
+
+  private ExcerptRetryService retryService(boolean enabled) {
+    return new ExcerptRetryService(kafkaTemplate, "generate-excerpt-retry", enabled, 2,
+        Duration.ofSeconds(1), 1000, meterRegistry);
+  }
+}
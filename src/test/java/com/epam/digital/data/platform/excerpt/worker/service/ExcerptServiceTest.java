@@ -18,13 +18,18 @@ package com.epam.digital.data.platform.excerpt.worker.service;
 
 import static com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus.COMPLETED;
 import static com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus.FAILED;
+import static com.epam.digital.data.platform.excerpt.model.ExcerptProcessingStatus.IN_PROGRESS;
 import static com.epam.digital.data.platform.excerpt.worker.service.ExcerptService.EXCERPT_CONTENT_TYPE;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -36,18 +41,32 @@ import com.epam.digital.data.platform.excerpt.dao.ExcerptRecord;
 import com.epam.digital.data.platform.excerpt.dao.ExcerptTemplate;
 import com.epam.digital.data.platform.excerpt.model.ExcerptEventDto;
 import com.epam.digital.data.platform.excerpt.worker.exception.ExcerptProcessingException;
+import com.epam.digital.data.platform.excerpt.worker.exception.ExcerptRetryableException;
+import com.epam.digital.data.platform.excerpt.worker.repository.ExcerptRecordBatchRepository;
 import com.epam.digital.data.platform.excerpt.worker.repository.ExcerptRecordRepository;
 import com.epam.digital.data.platform.excerpt.worker.repository.ExcerptTemplateRepository;
 import com.epam.digital.data.platform.integration.ceph.model.CephObject;
 import com.epam.digital.data.platform.integration.ceph.model.CephObjectMetadata;
 import com.epam.digital.data.platform.integration.ceph.service.CephService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -55,22 +74,39 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import org.springframework.util.unit.DataSize;
 
 @ExtendWith(MockitoExtension.class)
 class ExcerptServiceTest {
 
   private static final String BUCKET = "bucket";
+  private static final String RETRY_TOPIC = "generate-excerpt-retry";
   private static final UUID excerptId = UUID.fromString("11111111-1111-1111-1111-111111111111");
   private static final String templateName = "excerptName";
   private static final Map<String, Object> excerptData = Map.of("field", "data");
   private static final byte[] RENDERED_PDF_BYTES = {70, 71, 72};
   private static final byte[] SIGNED_OBJ_BYTES = {70, 71, 72, 73};
+  private static final DataSize SPILL_THRESHOLD = DataSize.ofMegabytes(1);
 
   ExcerptService excerptService;
+  ExcerptRetryService excerptRetryService;
+  SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  ExcerptLaneRouter excerptLaneRouter =
+      new ExcerptLaneRouter(mock(ExcerptInputLoader.class), DataSize.ofKilobytes(256),
+          Duration.ofSeconds(5));
+  RenderMemoryBudget renderMemoryBudget = new RenderMemoryBudget(meterRegistry, true,
+      DataSize.ofMegabytes(64), 0.5, DataSize.ofMegabytes(1), 4);
 
   @Mock
   ExcerptTemplateRepository templateRepository;
   @Mock
+  ExcerptRecordBatchRepository recordBatchRepository;
+  @Mock
+  CompiledTemplateCache compiledTemplateCache;
+  @Mock
   ExcerptRecordRepository recordRepository;
   @Mock
   HtmlRenderer htmlRenderer;
@@ -79,52 +115,68 @@ class ExcerptServiceTest {
   @Mock
   CephService datafactoryCephService;
   @Mock
+  ExcerptDeduplicator excerptDeduplicator;
+  @Mock
   DigitalSignatureFileRestClient digitalSignatureFileRestClient;
+  @Mock
+  KafkaTemplate<String, Object> kafkaTemplate;
   @Captor
-  ArgumentCaptor<ExcerptRecord> excerptRecordCaptor;
+  ArgumentCaptor<String> excerptKeyCaptor;
+  @Captor
+  ArgumentCaptor<String> statusDetailsCaptor;
+
+  private final AtomicInteger renderTaskCount = new AtomicInteger();
 
   @BeforeEach
   void init() {
-    excerptService =
-        new ExcerptService(
-            templateRepository,
-            recordRepository,
-            htmlRenderer,
-            pdfRenderer,
-            datafactoryCephService,
-            digitalSignatureFileRestClient,
-            true,
-            BUCKET);
+    excerptRetryService = retryService(false);
+    excerptService = newExcerptService(renderTasks(), true);
   }
 
   @Test
   void saveOnGenerationWithoutSignature() {
     // given
-    var mockExcerptRecord = new ExcerptRecord();
-    when(recordRepository.findById(excerptId)).thenReturn(Optional.of(mockExcerptRecord));
+    mockRecordUpdate();
 
     when(templateRepository.findFirstByTemplateName(templateName))
         .thenReturn(Optional.of(mockExcerptTemplate()));
 
-    when(pdfRenderer.render(any())).thenReturn(RENDERED_PDF_BYTES);
+    mockPdfRendering();
 
     // when
     excerptService.generateExcerpt(mockExcerptEventDto(false));
 
     // then
-    assertThat(mockExcerptRecord.getStatus()).isEqualTo(COMPLETED);
-    assertThat(mockExcerptRecord.getStatusDetails()).isNull();
-    assertThat(UUID.fromString(mockExcerptRecord.getExcerptKey())).isNotNull();
-    assertThat(mockExcerptRecord.getChecksum())
-        .isEqualTo(DigestUtils.sha256Hex(RENDERED_PDF_BYTES));
-    assertThat(mockExcerptRecord.getUpdatedAt()).isNotNull();
+    verify(recordRepository).updateCompleted(eq(excerptId), eq(COMPLETED),
+        excerptKeyCaptor.capture(), eq(DigestUtils.sha256Hex(RENDERED_PDF_BYTES)), notNull());
+    assertThat(UUID.fromString(excerptKeyCaptor.getValue())).isNotNull();
+    verify(recordRepository, never()).updateStatus(any(), any(), any(), any());
+    assertThat(renderTaskCount).hasValue(1);
+    assertThat(renderMemoryBudget.getReserved()).isZero();
+  }
+
+  @Test
+  void shouldReleaseRenderBudgetBeforeStoringExcerpt() {
+    mockRecordUpdate();
+    when(templateRepository.findFirstByTemplateName(templateName))
+        .thenReturn(Optional.of(mockExcerptTemplate()));
+    mockPdfRendering();
+    var reservedWhileStoring = new AtomicLong(-1);
+    doAnswer(invocation -> {
+      reservedWhileStoring.set(renderMemoryBudget.getReserved());
+      return null;
+    }).when(datafactoryCephService).put(any(), any(), any(), any(), any());
+
+    excerptService.generateExcerpt(mockExcerptEventDto(false));
+
+    assertThat(reservedWhileStoring.get()).isBetween(0L, 1024L);
+    assertThat(renderMemoryBudget.getReserved()).isZero();
   }
 
   @Test
   void saveOnGenerationWithSignature() {
     // given
-    var mockExcerptRecord = new ExcerptRecord();
-    when(recordRepository.findById(excerptId)).thenReturn(Optional.of(mockExcerptRecord));
+    mockRecordUpdate();
 
     when(templateRepository.findFirstByTemplateName(templateName))
         .thenReturn(Optional.of(mockExcerptTemplate()));
@@ -136,40 +188,28 @@ class ExcerptServiceTest {
                 .metadata(CephObjectMetadata.builder().build())
                 .build()));
 
-    when(pdfRenderer.render(any())).thenReturn(RENDERED_PDF_BYTES);
+    mockPdfRendering();
 
     // when
     excerptService.generateExcerpt(mockExcerptEventDto(true));
 
     // then
-    assertThat(mockExcerptRecord.getStatus()).isEqualTo(COMPLETED);
-    assertThat(mockExcerptRecord.getStatusDetails()).isNull();
-    assertThat(UUID.fromString(mockExcerptRecord.getExcerptKey())).isNotNull();
-    assertThat(mockExcerptRecord.getChecksum())
-        .isEqualTo(DigestUtils.sha256Hex(SIGNED_OBJ_BYTES));
-    assertThat(mockExcerptRecord.getUpdatedAt()).isNotNull();
+    verify(recordRepository).updateCompleted(eq(excerptId), eq(COMPLETED),
+        excerptKeyCaptor.capture(), eq(DigestUtils.sha256Hex(SIGNED_OBJ_BYTES)), notNull());
+    assertThat(UUID.fromString(excerptKeyCaptor.getValue())).isNotNull();
+    verify(recordRepository, never()).updateStatus(any(), any(), any(), any());
   }
 
   @Test
   void saveOnGenerationWithDisabledDigSignProcessing() {
-    excerptService =
-            new ExcerptService(
-                    templateRepository,
-                    recordRepository,
-                    htmlRenderer,
-                    pdfRenderer,
-                    datafactoryCephService,
-                    digitalSignatureFileRestClient,
-                    false,
-                    BUCKET);
+    excerptService = newExcerptService(Runnable::run, false);
     // given
-    var mockExcerptRecord = new ExcerptRecord();
-    when(recordRepository.findById(excerptId)).thenReturn(Optional.of(mockExcerptRecord));
+    mockRecordUpdate();
 
     when(templateRepository.findFirstByTemplateName(templateName))
             .thenReturn(Optional.of(mockExcerptTemplate()));
 
-    when(pdfRenderer.render(any())).thenReturn(RENDERED_PDF_BYTES);
+    mockPdfRendering();
 
     // when
     excerptService.generateExcerpt(mockExcerptEventDto(true));
@@ -182,13 +222,12 @@ class ExcerptServiceTest {
   @Test
   void verifyGenerateExcerpt() {
     // given
-    var mockExcerptRecord = new ExcerptRecord();
-    when(recordRepository.findById(excerptId)).thenReturn(Optional.of(mockExcerptRecord));
+    mockRecordUpdate();
 
     when(templateRepository.findFirstByTemplateName(templateName))
         .thenReturn(Optional.of(mockExcerptTemplate()));
 
-    when(pdfRenderer.render(any())).thenReturn(RENDERED_PDF_BYTES);
+    mockPdfRendering();
 
     // when
     excerptService.generateExcerpt(mockExcerptEventDto(false));
@@ -204,20 +243,19 @@ class ExcerptServiceTest {
             actualContentCapture.capture());
     assertThat(actualContentCapture.getValue().readAllBytes()).isEqualTo(RENDERED_PDF_BYTES);
     verify(htmlRenderer).render(any(), any());
-    verify(pdfRenderer).render(any());
-    verify(recordRepository).save(any());
+    verify(pdfRenderer).render(any(), any());
+    verify(recordRepository).updateCompleted(eq(excerptId), eq(COMPLETED), any(), any(), any());
   }
 
   @Test
   void writeErrorToDatabaseWhenPutContentToCephThrowsException() {
     // given
-    var mockExcerptRecord = new ExcerptRecord();
-    when(recordRepository.findById(excerptId)).thenReturn(Optional.of(mockExcerptRecord));
+    mockRecordUpdate();
 
     when(templateRepository.findFirstByTemplateName(templateName))
         .thenReturn(Optional.of(mockExcerptTemplate()));
 
-    when(pdfRenderer.render(any())).thenReturn(RENDERED_PDF_BYTES);
+    mockPdfRendering();
 
     doThrow(new RuntimeException("message"))
         .when(datafactoryCephService)
@@ -227,37 +265,32 @@ class ExcerptServiceTest {
     excerptService.generateExcerpt(mockExcerptEventDto(false));
 
     // then
-    verify(recordRepository).save(excerptRecordCaptor.capture());
-    var res = excerptRecordCaptor.getValue();
-    assertThat(res.getStatus()).isEqualTo(FAILED);
-    assertThat(res.getStatusDetails()).isEqualTo("Failed saving file to ceph");
-    assertThat(mockExcerptRecord.getUpdatedAt()).isNotNull();
+    verify(recordRepository).updateStatus(eq(excerptId), eq(FAILED),
+        statusDetailsCaptor.capture(), notNull());
+    assertThat(statusDetailsCaptor.getValue()).isEqualTo("Failed saving file to ceph");
+    assertThat(renderMemoryBudget.getReserved()).isZero();
   }
 
   @Test
   void writeErrorToDatabaseWhenTemplateNotFound() {
     // given
-    var mockExcerptRecord = new ExcerptRecord();
-
     when(templateRepository.findFirstByTemplateName(templateName)).thenReturn(Optional.empty());
-    when(recordRepository.findById(excerptId)).thenReturn(Optional.of(mockExcerptRecord));
+    mockRecordUpdate();
 
     // when
     excerptService.generateExcerpt(mockExcerptEventDto(false));
 
     // then
-    verify(recordRepository).save(excerptRecordCaptor.capture());
-    var res = excerptRecordCaptor.getValue();
-    assertThat(res.getStatus()).isEqualTo(FAILED);
-    assertThat(res.getStatusDetails()).isEqualTo("Excerpt template not found");
-    assertThat(mockExcerptRecord.getUpdatedAt()).isNotNull();
+    verify(recordRepository).updateStatus(eq(excerptId), eq(FAILED),
+        statusDetailsCaptor.capture(), notNull());
+    assertThat(statusDetailsCaptor.getValue()).isEqualTo("Excerpt template not found");
   }
 
   @Test
   void shouldWriteErrorToDatabaseWhenRecordNotFound() {
     // given
     when(templateRepository.findFirstByTemplateName(templateName)).thenReturn(Optional.empty());
-    when(recordRepository.findById(excerptId)).thenReturn(Optional.empty());
+    when(recordRepository.updateStatus(eq(excerptId), eq(FAILED), any(), any())).thenReturn(0);
 
     ExcerptEventDto input = mockExcerptEventDto(false);
 
@@ -273,11 +306,10 @@ class ExcerptServiceTest {
   @Test
   void writeErrorToDatabaseIfExcerptSigningFailure() {
     // given
-    var mockExcerptRecord = new ExcerptRecord();
-    when(recordRepository.findById(excerptId)).thenReturn(Optional.of(mockExcerptRecord));
+    mockRecordUpdate();
     when(templateRepository.findFirstByTemplateName(templateName))
         .thenReturn(Optional.of(mockExcerptTemplate()));
-    when(pdfRenderer.render(any())).thenReturn(RENDERED_PDF_BYTES);
+    mockPdfRendering();
 
     when(digitalSignatureFileRestClient.sign(any()))
         .thenReturn(new SignFileResponseDto(false));
@@ -286,21 +318,18 @@ class ExcerptServiceTest {
     excerptService.generateExcerpt(mockExcerptEventDto(true));
 
     // then
-    verify(recordRepository).save(excerptRecordCaptor.capture());
-    var res = excerptRecordCaptor.getValue();
-    assertThat(res.getStatus()).isEqualTo(FAILED);
-    assertThat(res.getStatusDetails()).startsWith("Excerpt signing failed");
-    assertThat(mockExcerptRecord.getUpdatedAt()).isNotNull();
+    verify(recordRepository).updateStatus(eq(excerptId), eq(FAILED),
+        statusDetailsCaptor.capture(), notNull());
+    assertThat(statusDetailsCaptor.getValue()).startsWith("Excerpt signing failed");
   }
 
   @Test
   void writeErrorToDatabaseIfSignedContentNotFoundInCeph() {
     // given
-    var mockExcerptRecord = new ExcerptRecord();
-    when(recordRepository.findById(excerptId)).thenReturn(Optional.of(mockExcerptRecord));
+    mockRecordUpdate();
     when(templateRepository.findFirstByTemplateName(templateName))
         .thenReturn(Optional.of(mockExcerptTemplate()));
-    when(pdfRenderer.render(any())).thenReturn(RENDERED_PDF_BYTES);
+    mockPdfRendering();
     when(digitalSignatureFileRestClient.sign(any()))
         .thenReturn(new SignFileResponseDto(true));
 
@@ -311,11 +340,368 @@ class ExcerptServiceTest {
     excerptService.generateExcerpt(mockExcerptEventDto(true));
 
     // then
-    verify(recordRepository).save(excerptRecordCaptor.capture());
-    var res = excerptRecordCaptor.getValue();
-    assertThat(res.getStatus()).isEqualTo(FAILED);
-    assertThat(res.getStatusDetails()).startsWith("Signed excerpt was not found in ceph");
-    assertThat(mockExcerptRecord.getUpdatedAt()).isNotNull();
+    verify(recordRepository).updateStatus(eq(excerptId), eq(FAILED),
+        statusDetailsCaptor.capture(), notNull());
+    assertThat(statusDetailsCaptor.getValue()).startsWith("Signed excerpt was not found in ceph");
+  }
+
+  @Test
+  void shouldRecordStageMetrics() {
+    mockRecordUpdate();
+    when(templateRepository.findFirstByTemplateName(templateName))
+        .thenReturn(Optional.of(mockExcerptTemplate()));
+    mockPdfRendering();
+
+    excerptService.generateExcerpt(mockExcerptEventDto(false));
+
+    for (var stage : List.of("template-lookup", "html-render", "pdf-render", "ceph-put",
+        "checksum", "db-update")) {
+      assertThat(meterRegistry.get("excerpt.stage.duration")
+          .tags("stage", stage, "excerptType", templateName, "outcome", "success")
+          .timer().count()).isOne();
+    }
+    assertThat(meterRegistry.get("excerpt.pdf.size").summary().totalAmount())
+        .isEqualTo(RENDERED_PDF_BYTES.length);
+  }
+
+  @Test
+  void shouldRecordHtmlSizeInUtf8Bytes() {
+    mockRecordUpdate();
+    when(templateRepository.findFirstByTemplateName(templateName))
+        .thenReturn(Optional.of(mockExcerptTemplate()));
+    mockPdfRendering();
+    when(htmlRenderer.render(any(), any())).thenReturn("<p>Привіт</p>");
+
+    excerptService.generateExcerpt(mockExcerptEventDto(false));
+
+    assertThat(meterRegistry.get("excerpt.html.size").summary().totalAmount())
+        .isEqualTo("<p>Привіт</p>".getBytes(StandardCharsets.UTF_8).length);
+  }
+
+  @Test
+  void shouldUpdateBatchResultsInOneJdbcBatch() {
+    var failedId = UUID.randomUUID();
+    var missingId = UUID.randomUUID();
+    var results = Map.of(
+        excerptId, ExcerptResult.completed("excerpt-key", "checksum"),
+        failedId, ExcerptResult.failed(
+            new ExcerptProcessingException(FAILED, "Excerpt template not found")),
+        missingId, ExcerptResult.completed("missing-key", "checksum"));
+    when(recordBatchRepository.updateResults(eq(results), notNull()))
+        .thenReturn(Set.of(excerptId, failedId));
+
+    excerptService.saveResults(results);
+
+    verify(recordRepository, never()).findAllById(any());
+    verify(recordRepository, never()).saveAll(any());
+    verify(recordRepository, never()).updateCompleted(any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void shouldStoreRenderedExcerptOnIoExecutor() {
+    mockPdfRendering();
+    var ioTaskCount = new AtomicInteger();
+    Executor ioExecutor = task -> {
+      ioTaskCount.incrementAndGet();
+      task.run();
+    };
+
+    var result = excerptService.renderAndStoreAsync(mockExcerptEventDto(false),
+        mockExcerptTemplate(), ioExecutor).join();
+
+    assertThat(result.getStatus()).isEqualTo(COMPLETED);
+    assertThat(result.getChecksum()).isEqualTo(DigestUtils.sha256Hex(RENDERED_PDF_BYTES));
+    assertThat(renderTaskCount).hasValue(1);
+    assertThat(ioTaskCount).hasValue(2);
+    assertThat(renderMemoryBudget.getReserved()).isZero();
+    verify(datafactoryCephService).put(eq(BUCKET), anyString(), any(), any(), any());
+    verify(recordRepository, never()).updateCompleted(any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void shouldReturnFailedResultWhenAsyncStoreFails() {
+    mockPdfRendering();
+    doThrow(new RuntimeException()).when(datafactoryCephService)
+        .put(any(), any(), any(), any(), any());
+
+    var result = excerptService.renderAndStoreAsync(mockExcerptEventDto(false),
+        mockExcerptTemplate(), Runnable::run).join();
+
+    assertThat(result.getStatus()).isEqualTo(FAILED);
+    assertThat(result.getStatusDetails()).isEqualTo("Failed saving file to ceph");
+  }
+
+  @Test
+  void shouldRenderInputDataReferencedInCeph() {
+    mockRecordUpdate();
+    mockPdfRendering();
+    when(templateRepository.findFirstByTemplateName(templateName))
+        .thenReturn(Optional.of(mockExcerptTemplate()));
+    when(datafactoryCephService.get(BUCKET, "input-key"))
+        .thenReturn(Optional.of(CephObject.builder()
+            .content(new ByteArrayInputStream("{\"field\":\"data\"}".getBytes()))
+            .metadata(CephObjectMetadata.builder().build())
+            .build()));
+    var event = new ExcerptEventDto(excerptId, templateName,
+        Map.of(ExcerptInputLoader.INPUT_DATA_REFERENCE, "input-key"), false);
+
+    excerptService.generateExcerpt(event);
+
+    var inputCaptor = ArgumentCaptor.forClass(Object.class);
+    verify(htmlRenderer).render(any(), inputCaptor.capture());
+    assertThat(inputCaptor.getValue()).hasToString("{\"field\":\"data\"}");
+    verify(recordRepository).updateCompleted(eq(excerptId), eq(COMPLETED), any(), any(), any());
+  }
+
+  @Test
+  void shouldNotDeduplicateInputDataReferencedInCeph() {
+    mockRecordUpdate();
+    mockPdfRendering();
+    when(excerptDeduplicator.isEnabled()).thenReturn(true);
+    when(templateRepository.findFirstByTemplateName(templateName))
+        .thenReturn(Optional.of(mockExcerptTemplate()));
+    when(datafactoryCephService.get(BUCKET, "input-key"))
+        .thenReturn(Optional.of(CephObject.builder()
+            .content(new ByteArrayInputStream("{\"field\":\"data\"}".getBytes()))
+            .metadata(CephObjectMetadata.builder().build())
+            .build()));
+    var event = new ExcerptEventDto(excerptId, templateName,
+        Map.of(ExcerptInputLoader.INPUT_DATA_REFERENCE, "input-key"), false);
+
+    excerptService.generateExcerpt(event);
+
+    verify(excerptDeduplicator, never()).deduplicate(any(), any(), any());
+    verify(recordRepository).updateCompleted(eq(excerptId), eq(COMPLETED), any(), any(), any());
+  }
+
+  @Test
+  void shouldSkipRedeliveredEventOfCompletedRecord() {
+    var record = new ExcerptRecord();
+    record.setId(excerptId);
+    record.setStatus(COMPLETED);
+    record.setExcerptKey("stored-key");
+    record.setChecksum("checksum");
+    when(recordRepository.findById(excerptId)).thenReturn(Optional.of(record));
+
+    var result = excerptService.generateExcerpt(mockExcerptEventDto(false));
+
+    assertThat(result.getStatus()).isEqualTo(COMPLETED);
+    assertThat(result.getExcerptKey()).isEqualTo("stored-key");
+    verify(templateRepository, never()).findFirstByTemplateName(any());
+    verify(htmlRenderer, never()).render(any(), any());
+    verify(recordRepository, never()).updateCompleted(any(), any(), any(), any(), any());
+    assertThat(meterRegistry.get("excerpt.duplicates.skipped").tag("source", "database")
+        .counter().count()).isOne();
+  }
+
+  @Test
+  void shouldSkipEventCompletedByThisWorkerWithoutQueryingDatabase() {
+    mockRecordUpdate();
+    when(templateRepository.findFirstByTemplateName(templateName))
+        .thenReturn(Optional.of(mockExcerptTemplate()));
+    mockPdfRendering();
+
+    excerptService.generateExcerpt(mockExcerptEventDto(false));
+    excerptService.generateExcerpt(mockExcerptEventDto(false));
+
+    verify(htmlRenderer).render(any(), any());
+    verify(recordRepository).findById(excerptId);
+    assertThat(meterRegistry.get("excerpt.duplicates.skipped").tag("source", "cache")
+        .counter().count()).isOne();
+  }
+
+  @Test
+  void shouldScheduleRetryAndKeepPdfWhenCephPutFails() {
+    enableRetries();
+    mockRecordUpdate();
+    mockPdfRendering();
+    when(templateRepository.findFirstByTemplateName(templateName))
+        .thenReturn(Optional.of(mockExcerptTemplate()));
+    doThrow(new RuntimeException()).when(datafactoryCephService)
+        .put(any(), any(), any(), any(), any());
+
+    excerptService.generateExcerpt(mockExcerptEventDto(false));
+
+    verify(recordRepository).updateStatus(eq(excerptId), eq(IN_PROGRESS),
+        statusDetailsCaptor.capture(), notNull());
+    assertThat(statusDetailsCaptor.getValue())
+        .isEqualTo("Retry scheduled: Failed saving file to ceph");
+    var recordCaptor = ArgumentCaptor.forClass(ProducerRecord.class);
+    verify(kafkaTemplate).send(recordCaptor.capture());
+    assertThat(recordCaptor.getValue().topic()).isEqualTo(RETRY_TOPIC);
+    assertThat(recordCaptor.getValue().headers()
+        .lastHeader(ExcerptRetryService.CEPH_KEY_HEADER)).isNotNull();
+    assertThat(excerptRetryService.getParkedCount()).isOne();
+    assertThat(renderMemoryBudget.getReserved()).isZero();
+  }
+
+  @Test
+  void shouldResumeParkedExcerptWithoutRendering() {
+    enableRetries();
+    mockRecordUpdate();
+    var pdf = new ExcerptContent(SPILL_THRESHOLD.toBytes());
+    write(pdf, RENDERED_PDF_BYTES);
+    excerptRetryService.park("parked-key", pdf);
+
+    var result = excerptService.resumeExcerpt(mockExcerptEventDto(false), "parked-key", false);
+
+    assertThat(result.getStatus()).isEqualTo(COMPLETED);
+    verify(datafactoryCephService).put(eq(BUCKET), eq("parked-key"), any(), any(), any());
+    verify(recordRepository).updateCompleted(eq(excerptId), eq(COMPLETED), eq("parked-key"),
+        eq(DigestUtils.sha256Hex(RENDERED_PDF_BYTES)), notNull());
+    verify(htmlRenderer, never()).render(any(), any());
+    assertThat(excerptRetryService.getParkedCount()).isZero();
+  }
+
+  @Test
+  void shouldResumeSigningWhenExcerptIsAlreadyStored() {
+    enableRetries();
+    mockRecordUpdate();
+    when(datafactoryCephService.exist(BUCKET, "stored-key")).thenReturn(true);
+    when(digitalSignatureFileRestClient.sign(any())).thenReturn(new SignFileResponseDto(true));
+    when(datafactoryCephService.get(BUCKET, "stored-key"))
+        .thenReturn(Optional.of(CephObject.builder()
+            .content(new ByteArrayInputStream(SIGNED_OBJ_BYTES))
+            .metadata(CephObjectMetadata.builder().build())
+            .build()));
+
+    excerptService.resumeExcerpt(mockExcerptEventDto(true), "stored-key", false);
+
+    verify(recordRepository).updateCompleted(eq(excerptId), eq(COMPLETED), eq("stored-key"),
+        eq(DigestUtils.sha256Hex(SIGNED_OBJ_BYTES)), notNull());
+    verify(htmlRenderer, never()).render(any(), any());
+    verify(datafactoryCephService, never()).put(any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void shouldOnlyRecomputeChecksumWhenExcerptIsAlreadySigned() {
+    enableRetries();
+    mockRecordUpdate();
+    when(datafactoryCephService.get(BUCKET, "signed-key"))
+        .thenReturn(Optional.of(CephObject.builder()
+            .content(new ByteArrayInputStream(SIGNED_OBJ_BYTES))
+            .metadata(CephObjectMetadata.builder().build())
+            .build()));
+
+    excerptService.resumeExcerpt(mockExcerptEventDto(true), "signed-key", true);
+
+    verify(recordRepository).updateCompleted(eq(excerptId), eq(COMPLETED), eq("signed-key"),
+        eq(DigestUtils.sha256Hex(SIGNED_OBJ_BYTES)), notNull());
+    verify(digitalSignatureFileRestClient, never()).sign(any());
+    verify(datafactoryCephService, never()).exist(any(), anyString());
+  }
+
+  @Test
+  void shouldMarkRetryAsSignedWhenChecksumFailsAfterSigning() {
+    enableRetries();
+    mockRecordUpdate();
+    when(datafactoryCephService.exist(BUCKET, "stored-key")).thenReturn(true);
+    when(digitalSignatureFileRestClient.sign(any())).thenReturn(new SignFileResponseDto(true));
+    when(datafactoryCephService.get(BUCKET, "stored-key")).thenThrow(new RuntimeException());
+    var event = mockExcerptEventDto(true);
+
+    var exception = assertThrows(ExcerptRetryableException.class,
+        () -> excerptService.resumeExcerpt(event, "stored-key", false));
+
+    assertThat(exception.isSigned()).isTrue();
+    assertThat(exception.getCephKey()).isEqualTo("stored-key");
+  }
+
+  @Test
+  void shouldRethrowTransientFailureWhileResuming() {
+    enableRetries();
+    var pdf = new ExcerptContent(SPILL_THRESHOLD.toBytes());
+    write(pdf, RENDERED_PDF_BYTES);
+    excerptRetryService.park("parked-key", pdf);
+    doThrow(new RuntimeException()).when(datafactoryCephService)
+        .put(any(), any(), any(), any(), any());
+    var event = mockExcerptEventDto(false);
+
+    assertThrows(ExcerptRetryableException.class,
+        () -> excerptService.resumeExcerpt(event, "parked-key", false));
+
+    assertThat(excerptRetryService.getParkedCount()).isOne();
+    verify(recordRepository, never()).updateStatus(any(), any(), any(), any());
+  }
+
+  @Test
+  void shouldFailRecordWhenRetriesAreExhausted() {
+    enableRetries();
+    mockRecordUpdate();
+
+    excerptService.retriesExhausted(mockExcerptEventDto(true), "stored-key");
+
+    verify(datafactoryCephService).delete(BUCKET, Set.of("stored-key"));
+    verify(recordRepository).updateStatus(eq(excerptId), eq(FAILED),
+        statusDetailsCaptor.capture(), notNull());
+    assertThat(statusDetailsCaptor.getValue()).isEqualTo("Excerpt generation retries exhausted");
+  }
+
+  private void enableRetries() {
+    excerptRetryService = retryService(true);
+    excerptService = newExcerptService(renderTasks(), true);
+    var sent = new SettableListenableFuture<SendResult<String, Object>>();
+    sent.set(null);
+    lenient().when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(sent);
+  }
+
+  private ExcerptRetryService retryService(boolean enabled) {
+    return new ExcerptRetryService(kafkaTemplate, RETRY_TOPIC, enabled, 10,
+        Duration.ofSeconds(1), 1000, meterRegistry);
+  }
+
+  private ExcerptService newExcerptService(Executor renderTasks, boolean signatureEnabled) {
+    return new ExcerptService(
+        new ExcerptTemplateCache(templateRepository, compiledTemplateCache,
+            new SimpleMeterRegistry(), 10),
+        recordRepository,
+        recordBatchRepository,
+        htmlRenderer,
+        pdfRenderer,
+        datafactoryCephService,
+        new ExcerptInputLoader(datafactoryCephService, new ObjectMapper(), BUCKET, false),
+        excerptDeduplicator,
+        excerptRetryService,
+        new CompletedExcerptFilter(recordRepository, new ExcerptMetrics(meterRegistry), true, 10),
+        new ExcerptMetrics(meterRegistry),
+        renderMemoryBudget,
+        excerptLaneRouter,
+        renderTasks,
+        new ExcerptSigningClient(digitalSignatureFileRestClient, meterRegistry, 2,
+            Duration.ofSeconds(1), true, 3, Duration.ofMinutes(1)),
+        signatureEnabled,
+        BUCKET,
+        SPILL_THRESHOLD);
+  }
+
+  private static void write(ExcerptContent content, byte[] bytes) {
+    try {
+      content.getOutputStream().write(bytes);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private Executor renderTasks() {
+    return task -> {
+      renderTaskCount.incrementAndGet();
+      task.run();
+    };
+  }
+
+  private void mockRecordUpdate() {
+    lenient().when(recordRepository.updateCompleted(eq(excerptId), any(), any(), any(), any()))
+        .thenReturn(1);
+    lenient().when(recordRepository.updateStatus(eq(excerptId), any(), any(), any()))
+        .thenReturn(1);
+  }
+
+  private void mockPdfRendering() {
+    when(htmlRenderer.render(any(), any())).thenReturn("<html></html>");
+    doAnswer(invocation -> {
+      invocation.getArgument(1, OutputStream.class).write(RENDERED_PDF_BYTES);
+      return null;
+    }).when(pdfRenderer).render(any(), any());
   }
 
   private ExcerptEventDto mockExcerptEventDto(boolean requiresSystemSignature) {
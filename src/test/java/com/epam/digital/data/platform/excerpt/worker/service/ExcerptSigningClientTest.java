@@ -0,0 +1,186 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.epam.digital.data.platform.dso.api.dto.SignFileResponseDto;
+import com.epam.digital.data.platform.dso.client.DigitalSignatureFileRestClient;
+import com.epam.digital.data.platform.excerpt.worker.exception.SigningUnavailableException;
+import com.epam.digital.data.platform.excerpt.worker.service.ExcerptSigningClient.CircuitState;
+import feign.FeignException;
+import feign.RetryableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ExcerptSigningClientTest {
+
+  private static final String CEPH_KEY = "ceph-key";
+  private static final String EXCERPT_TYPE = "excerptType";
+
+  SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Mock
+  DigitalSignatureFileRestClient digitalSignatureFileRestClient;
+
+  @Test
+  void shouldRecordCallLatencyAndQueueWait() {
+    when(digitalSignatureFileRestClient.sign(any())).thenReturn(new SignFileResponseDto(true));
+
+    var response = signingClient(Duration.ofMinutes(1)).sign(CEPH_KEY, EXCERPT_TYPE);
+
+    assertThat(response.isSigned()).isTrue();
+    assertThat(meterRegistry.get(ExcerptSigningClient.CALL_TIMER)
+        .tag("outcome", ExcerptMetrics.SUCCESS).timer().count()).isOne();
+    assertThat(meterRegistry.get(ExcerptSigningClient.QUEUE_WAIT_TIMER).timer().count())
+        .isOne();
+    assertThat(meterRegistry.get(ExcerptSigningClient.IN_FLIGHT_GAUGE).gauge().value())
+        .isZero();
+  }
+
+  @Test
+  void shouldRejectCallWhenConcurrencyLimitIsReached() throws Exception {
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    when(digitalSignatureFileRestClient.sign(any())).thenAnswer(invocation -> {
+      started.countDown();
+      release.await();
+      return new SignFileResponseDto(true);
+    });
+    var signingClient = signingClient(Duration.ofMinutes(1));
+
+    var inFlight = CompletableFuture.supplyAsync(() -> signingClient.sign(CEPH_KEY, EXCERPT_TYPE));
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    assertThatThrownBy(() -> signingClient.sign(CEPH_KEY, EXCERPT_TYPE))
+        .isInstanceOf(SigningUnavailableException.class);
+    assertThat(signingClient.getInFlight()).isOne();
+    assertThat(meterRegistry.get(ExcerptSigningClient.REJECTED_COUNTER)
+        .tag("reason", ExcerptSigningClient.QUEUE_TIMEOUT).counter().count()).isOne();
+
+    release.countDown();
+    assertThat(inFlight.get(5, TimeUnit.SECONDS).isSigned()).isTrue();
+    assertThat(signingClient.getInFlight()).isZero();
+  }
+
+  @Test
+  void shouldOpenCircuitAfterConsecutiveTransientFailures() {
+    var unavailable = feignException(503);
+    when(digitalSignatureFileRestClient.sign(any())).thenThrow(unavailable);
+    var signingClient = signingClient(Duration.ofMinutes(1));
+
+    for (var i = 0; i < 2; i++) {
+      assertThatThrownBy(() -> signingClient.sign(CEPH_KEY, EXCERPT_TYPE))
+          .isInstanceOf(FeignException.class);
+    }
+
+    assertThat(signingClient.getCircuitState()).isEqualTo(CircuitState.OPEN);
+    assertThatThrownBy(() -> signingClient.sign(CEPH_KEY, EXCERPT_TYPE))
+        .isInstanceOf(SigningUnavailableException.class);
+    verify(digitalSignatureFileRestClient, times(2)).sign(any());
+    assertThat(meterRegistry.get(ExcerptSigningClient.REJECTED_COUNTER)
+        .tag("reason", ExcerptSigningClient.CIRCUIT_OPEN).counter().count()).isOne();
+  }
+
+  @Test
+  void shouldNotOpenCircuitOnClientErrors() {
+    var badRequest = feignException(400);
+    when(digitalSignatureFileRestClient.sign(any())).thenThrow(badRequest);
+    var signingClient = signingClient(Duration.ofMinutes(1));
+
+    for (var i = 0; i < 3; i++) {
+      assertThatThrownBy(() -> signingClient.sign(CEPH_KEY, EXCERPT_TYPE))
+          .isInstanceOf(FeignException.class);
+    }
+
+    assertThat(signingClient.getCircuitState()).isEqualTo(CircuitState.CLOSED);
+    verify(digitalSignatureFileRestClient, times(3)).sign(any());
+  }
+
+  @Test
+  void shouldNotOpenCircuitOnProgrammingErrors() {
+    when(digitalSignatureFileRestClient.sign(any())).thenThrow(new NullPointerException());
+    var signingClient = signingClient(Duration.ofMinutes(1));
+
+    for (var i = 0; i < 3; i++) {
+      assertThatThrownBy(() -> signingClient.sign(CEPH_KEY, EXCERPT_TYPE))
+          .isInstanceOf(NullPointerException.class);
+    }
+
+    assertThat(signingClient.getCircuitState()).isEqualTo(CircuitState.CLOSED);
+    verify(digitalSignatureFileRestClient, times(3)).sign(any());
+  }
+
+  @Test
+  void shouldTreatOnlyConnectionFailuresAndRetryableStatusesAsTransient() {
+    assertThat(ExcerptSigningClient.isTransient(mock(RetryableException.class))).isTrue();
+    assertThat(ExcerptSigningClient.isTransient(new UncheckedIOException(new IOException())))
+        .isTrue();
+    assertThat(ExcerptSigningClient.isTransient(new SigningUnavailableException("open")))
+        .isTrue();
+    assertThat(ExcerptSigningClient.isTransient(feignException(429))).isTrue();
+    assertThat(ExcerptSigningClient.isTransient(feignException(502))).isTrue();
+    assertThat(ExcerptSigningClient.isTransient(feignException(404))).isFalse();
+    assertThat(ExcerptSigningClient.isTransient(feignException(-1))).isFalse();
+    assertThat(ExcerptSigningClient.isTransient(new IllegalStateException())).isFalse();
+  }
+
+  @Test
+  void shouldCloseCircuitWhenTrialCallSucceeds() {
+    var unavailable = feignException(503);
+    when(digitalSignatureFileRestClient.sign(any()))
+        .thenThrow(unavailable, unavailable)
+        .thenReturn(new SignFileResponseDto(true));
+    var signingClient = signingClient(Duration.ZERO);
+
+    for (var i = 0; i < 2; i++) {
+      assertThatThrownBy(() -> signingClient.sign(CEPH_KEY, EXCERPT_TYPE))
+          .isInstanceOf(FeignException.class);
+    }
+    assertThat(signingClient.getCircuitState()).isEqualTo(CircuitState.HALF_OPEN);
+
+    assertThat(signingClient.sign(CEPH_KEY, EXCERPT_TYPE).isSigned()).isTrue();
+    assertThat(signingClient.getCircuitState()).isEqualTo(CircuitState.CLOSED);
+  }
+
+  private ExcerptSigningClient signingClient(Duration openDuration) {
+    return new ExcerptSigningClient(digitalSignatureFileRestClient, meterRegistry, 1,
+        Duration.ofMillis(10), true, 2, openDuration);
+  }
+
+  private static FeignException feignException(int status) {
+    var exception = mock(FeignException.class);
+    when(exception.status()).thenReturn(status);
+    return exception;
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.epam.digital.data.platform.excerpt.dao.ExcerptTemplate;
+import com.epam.digital.data.platform.excerpt.worker.repository.ExcerptTemplateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ExcerptTemplateCacheTest {
+
+  static final String TEMPLATE_NAME = "template";
+
+  ExcerptTemplateCache instance;
+
+  @Mock
+  ExcerptTemplateRepository templateRepository;
+  @Mock
+  CompiledTemplateCache compiledTemplateCache;
+
+  ExcerptTemplate excerptTemplate;
+
+  @BeforeEach
+  void setup() {
+    instance = new ExcerptTemplateCache(templateRepository, compiledTemplateCache,
+        new SimpleMeterRegistry(), 10);
+    excerptTemplate = new ExcerptTemplate();
+    excerptTemplate.setId(UUID.randomUUID());
+    excerptTemplate.setTemplateName(TEMPLATE_NAME);
+    excerptTemplate.setTemplate("<p>[=name]</p>");
+  }
+
+  @Test
+  void shouldLoadTemplateOnce() {
+    when(templateRepository.findFirstByTemplateName(TEMPLATE_NAME))
+        .thenReturn(Optional.of(excerptTemplate));
+
+    assertThat(instance.findByName(TEMPLATE_NAME)).contains(excerptTemplate);
+    assertThat(instance.findByName(TEMPLATE_NAME)).contains(excerptTemplate);
+
+    verify(templateRepository).findFirstByTemplateName(TEMPLATE_NAME);
+  }
+
+  @Test
+  void shouldNotCacheMissingTemplate() {
+    when(templateRepository.findFirstByTemplateName(TEMPLATE_NAME))
+        .thenReturn(Optional.empty(), Optional.of(excerptTemplate));
+
+    assertThat(instance.findByName(TEMPLATE_NAME)).isEmpty();
+    assertThat(instance.findByName(TEMPLATE_NAME)).contains(excerptTemplate);
+  }
+
+  @Test
+  void shouldEvictRowAndCompiledTemplateById() {
+    when(templateRepository.findFirstByTemplateName(TEMPLATE_NAME))
+        .thenReturn(Optional.of(excerptTemplate));
+    instance.findByName(TEMPLATE_NAME);
+
+    instance.evict(excerptTemplate.getId());
+    instance.findByName(TEMPLATE_NAME);
+
+    verify(compiledTemplateCache).evict(excerptTemplate.getId());
+    verify(templateRepository, times(2)).findFirstByTemplateName(TEMPLATE_NAME);
+  }
+
+  @Test
+  void shouldEvictOnlyChangedTemplates() {
+    when(templateRepository.findFirstByTemplateName(TEMPLATE_NAME))
+        .thenReturn(Optional.of(excerptTemplate));
+    instance.findByName(TEMPLATE_NAME);
+
+    instance.evictChanged(Map.of(excerptTemplate.getId(),
+        DigestUtils.md5Hex(excerptTemplate.getTemplate())));
+    verify(compiledTemplateCache, never()).evict(excerptTemplate.getId());
+
+    instance.evictChanged(Map.of(excerptTemplate.getId(), "changed"));
+    verify(compiledTemplateCache).evict(excerptTemplate.getId());
+  }
+}
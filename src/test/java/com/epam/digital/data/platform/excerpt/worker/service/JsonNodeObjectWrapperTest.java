@@ -0,0 +1,65 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.epam.digital.data.platform.excerpt.worker.config.FreeMarkerConfiguration;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import java.io.StringWriter;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class JsonNodeObjectWrapperTest {
+
+  private static final String JSON = "{"
+      + "\"name\": \"Registry\", \"count\": 2, \"active\": true, \"missing\": null,"
+      + "\"rows\": [{\"id\": 1, \"tags\": [\"a\", \"b\"]}, {\"id\": 2.5, \"tags\": []}],"
+      + "\"meta\": {\"z\": \"last\", \"a\": \"first\"}"
+      + "}";
+  private static final String TEMPLATE = "[=name] [=count + 1] [=active?c] [=missing!'-']"
+      + "[#list rows as row] [=row?index]:[=row.id][#list row.tags as tag],[=tag][/#list][/#list]"
+      + " [=rows?size] [=rows[1].id]"
+      + "[#list meta as key, value] [=key]=[=value][/#list]"
+      + " [=meta?keys?join('|')] [=meta?values?join('|')]"
+      + " [=(unknown.field)!'none']";
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final Configuration freemarker = new FreeMarkerConfiguration().getConfig();
+
+  @Test
+  void shouldRenderJsonTreeLikeDeserializedMap() throws Exception {
+    var tree = objectMapper.readTree(JSON);
+    var map = objectMapper.readValue(JSON, new TypeReference<Map<String, Object>>() {});
+
+    var fromTree = render(tree);
+
+    assertThat(fromTree).isEqualTo(render(map))
+        .isEqualTo("Registry 3 true - 0:1,a,b 1:2.5 2 2.5 z=last a=first"
+            + " z|a last|first none");
+  }
+
+  private String render(Object model) throws Exception {
+    var template = new Template("test", TEMPLATE, freemarker);
+    var writer = new StringWriter();
+    template.process(model, writer);
+    return writer.toString();
+  }
+}
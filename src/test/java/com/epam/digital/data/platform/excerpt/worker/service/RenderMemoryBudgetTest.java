@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+class RenderMemoryBudgetTest {
+
+  private static final String EXCERPT_TYPE = "excerptType";
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void shouldHoldRenderUntilBudgetIsReleased() throws Exception {
+    var budget = budget(true, DataSize.ofKilobytes(100));
+
+    var first = budget.reserve(EXCERPT_TYPE, Map.of("field", "x".repeat(50_000)));
+    assertThat(budget.getReserved()).isEqualTo(budget.getBudget());
+
+    var second = CompletableFuture.supplyAsync(() -> budget.reserve(EXCERPT_TYPE, Map.of()));
+    assertThat(second).failsWithin(100, TimeUnit.MILLISECONDS)
+        .withThrowableOfType(TimeoutException.class);
+
+    first.close();
+    second.get(5, TimeUnit.SECONDS).close();
+
+    assertThat(budget.getReserved()).isZero();
+    assertThat(meterRegistry.get(RenderMemoryBudget.WAIT_TIMER).timer().count()).isEqualTo(2);
+    assertThat(meterRegistry.get(RenderMemoryBudget.BUDGET_GAUGE).gauge().value())
+        .isEqualTo(100 * 1024);
+  }
+
+  @Test
+  void shouldShrinkReservationToRetainedPdfAfterRendering() {
+    var budget = budget(true, DataSize.ofMegabytes(64));
+
+    try (var reservation = budget.reserve(EXCERPT_TYPE, Map.of("field", "x".repeat(1_000_000)))) {
+      reservation.shrinkTo(10 * 1024);
+      assertThat(budget.getReserved()).isEqualTo(10 * 1024);
+
+      reservation.shrinkTo(0);
+      assertThat(budget.getReserved()).isZero();
+    }
+
+    assertThat(budget.getReserved()).isZero();
+  }
+
+  @Test
+  void shouldLearnCostRatioFromRenderHistory() {
+    var budget = budget(true, DataSize.ofMegabytes(64));
+    var inputSize = RenderMemoryBudget.estimateInputSize(Map.of("field", "x".repeat(1_000_000)));
+    var initialCost = budget.estimateCost(EXCERPT_TYPE, inputSize);
+
+    try (var reservation = budget.reserve(EXCERPT_TYPE, Map.of("field", "x".repeat(1_000_000)))) {
+      reservation.recordUsage(10, 0);
+    }
+
+    assertThat(initialCost).isEqualTo(inputSize * 4);
+    assertThat(budget.estimateCost(EXCERPT_TYPE, inputSize)).isLessThan(initialCost);
+    assertThat(budget.estimateCost("otherType", inputSize)).isEqualTo(initialCost);
+  }
+
+  @Test
+  void shouldEstimateJsonTreesLikeMaps() throws Exception {
+    var data = Map.of("rows", List.of(Map.of("name", "value"), Map.of("name", "other")));
+    var tree = new ObjectMapper().valueToTree(data);
+
+    assertThat(RenderMemoryBudget.estimateInputSize(tree))
+        .isEqualTo(RenderMemoryBudget.estimateInputSize(data));
+  }
+
+  @Test
+  void shouldNotReserveWhenDisabled() {
+    var budget = budget(false, DataSize.ofKilobytes(1));
+
+    var first = budget.reserve(EXCERPT_TYPE, Map.of("field", "x".repeat(5_000)));
+    var second = budget.reserve(EXCERPT_TYPE, Map.of("field", "x".repeat(5_000)));
+
+    assertThat(budget.getReserved()).isZero();
+    first.close();
+    second.close();
+  }
+
+  private RenderMemoryBudget budget(boolean enabled, DataSize maxSize) {
+    return new RenderMemoryBudget(meterRegistry, enabled, maxSize, 0.5,
+        DataSize.ofKilobytes(1), 4);
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2021 EPAM Systems.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.epam.digital.data.platform.excerpt.worker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.epam.digital.data.platform.excerpt.dao.ExcerptTemplate;
+import com.epam.digital.data.platform.excerpt.worker.repository.ExcerptTemplateRepository;
+import freemarker.template.Configuration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+
+@ExtendWith(MockitoExtension.class)
+class RendererWarmUpTest {
+
+  static final Clock CLOCK = Clock.fixed(Instant.parse("2021-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+  @Mock
+  ExcerptTemplateRepository templateRepository;
+  @Mock
+  PdfRenderer pdfRenderer;
+
+  CompiledTemplateCache templateCache;
+
+  @BeforeEach
+  void setup() {
+    var configuration = new Configuration(Configuration.VERSION_2_3_30);
+    configuration.setTagSyntax(Configuration.SQUARE_BRACKET_TAG_SYNTAX);
+    configuration.setInterpolationSyntax(Configuration.SQUARE_BRACKET_INTERPOLATION_SYNTAX);
+    templateCache = new CompiledTemplateCache(configuration, new SimpleMeterRegistry(), 10);
+  }
+
+  @Test
+  void shouldCompileAndRenderEveryTemplate() {
+    when(templateRepository.findAll()).thenReturn(List.of(
+        template("first", "<p>[=missing.value]</p><p>first</p>"),
+        template("second", "<p>second</p>")));
+
+    warmUp(CLOCK, true).start();
+
+    verify(pdfRenderer, times(2)).render(contains("first"), any());
+    verify(pdfRenderer, times(2)).render(contains("second"), any());
+  }
+
+  @Test
+  void shouldWarmUpPdfPipelineWithoutTemplates() {
+    when(templateRepository.findAll()).thenReturn(List.of());
+
+    warmUp(CLOCK, true).start();
+
+    verify(pdfRenderer, times(2)).render(eq(RendererWarmUp.WARM_UP_HTML), any());
+  }
+
+  @Test
+  void shouldStopWhenTimeBudgetIsExceeded() {
+    var clock = mock(Clock.class);
+    var now = CLOCK.instant();
+    when(clock.instant()).thenReturn(now, now, now.plusSeconds(120));
+    when(templateRepository.findAll()).thenReturn(List.of(template("first", "<p>first</p>")));
+
+    warmUp(clock, true).start();
+
+    verify(pdfRenderer, times(1)).render(any(), any());
+  }
+
+  @Test
+  void shouldSkipWhenDisabled() {
+    warmUp(CLOCK, false).start();
+
+    verify(templateRepository, never()).findAll();
+    verify(pdfRenderer, never()).render(any(), any());
+  }
+
+  @Test
+  void shouldFinishBeforeListenerContainersStart() {
+    assertThat(warmUp(CLOCK, false).getPhase())
+        .isLessThan(AbstractMessageListenerContainer.DEFAULT_PHASE);
+  }
+
+  private RendererWarmUp warmUp(Clock clock, boolean enabled) {
+    return new RendererWarmUp(templateRepository, templateCache, pdfRenderer, clock, enabled, 2,
+        Duration.ofSeconds(60));
+  }
+
+  private ExcerptTemplate template(String name, String source) {
+    var template = new ExcerptTemplate();
+    template.setTemplateName(name);
+    template.setTemplate(source);
+    return template;
+  }
+}